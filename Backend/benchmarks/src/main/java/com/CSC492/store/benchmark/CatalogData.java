@@ -0,0 +1,102 @@
+package com.CSC492.store.benchmark;
+
+import com.CSC492.store.model.Order;
+import com.CSC492.store.model.OrderItem;
+import com.CSC492.store.model.Product;
+import com.CSC492.store.model.ProductRatingStats;
+import com.CSC492.store.model.ProductReview;
+import com.CSC492.store.model.User;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+// Synthetic catalog, reviews and orders for the benchmarks
+// a fixed seed makes every run use the same data
+public class CatalogData {
+
+    public static final String[] CATEGORIES = {
+            "Electronics", "Books", "Clothing", "Home", "Garden", "Toys", "Sports", "Beauty", "Grocery", "Automotive",
+            "Music", "Movies", "Office", "Pets", "Health", "Jewelry", "Shoes", "Tools", "Baby", "Outdoors"
+    };
+
+    private static final String[] ADJECTIVES = {"Wireless", "Classic", "Portable", "Deluxe", "Compact", "Smart", "Vintage", "Ultra", "Eco", "Pro"};
+    private static final String[] NOUNS = {"Mouse", "Keyboard", "Lamp", "Backpack", "Jacket", "Speaker", "Bottle", "Chair", "Watch", "Camera"};
+
+    private CatalogData() {}
+
+    // products with ids 1..count, random category, price between 1.00 and 500.00, about 10% out of stock
+    public static List<Product> products(int count, long seed) {
+        Random random = new Random(seed);
+        List<Product> products = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            String name = ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " " + NOUNS[random.nextInt(NOUNS.length)] + " " + i;
+            BigDecimal price = BigDecimal.valueOf(100 + random.nextInt(49_900), 2);
+            int stock;
+            if (random.nextInt(10) == 0) {
+                stock = 0;
+            } else {
+                stock = 1 + random.nextInt(100);
+            }
+            Product product = new Product(name, "", price, "", CATEGORIES[random.nextInt(CATEGORIES.length)], stock);
+            product.setId((long) i);
+            products.add(product);
+        }
+        return products;
+    }
+
+    // customers with ids 1..count
+    public static List<User> users(int count) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            User user = new User("Customer " + i, "customer" + i + "@example.com", "", User.Role.CUSTOMER);
+            user.setId((long) i);
+            users.add(user);
+        }
+        return users;
+    }
+
+    // count reviews with a rating from 1 to 5 on random products by random users
+    public static List<ProductReview> reviews(List<Product> products, List<User> users, int count, long seed) {
+        Random random = new Random(seed);
+        List<ProductReview> reviews = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            Product product = products.get(random.nextInt(products.size()));
+            User user = users.get(random.nextInt(users.size()));
+            ProductReview review = new ProductReview(1 + random.nextInt(5), "", product, user);
+            review.setId((long) i);
+            reviews.add(review);
+        }
+        return reviews;
+    }
+
+    // rating totals per product, as ProductRatingService keeps them
+    public static List<ProductRatingStats> ratingStats(List<ProductReview> reviews) {
+        Map<Long, ProductRatingStats> byProduct = new HashMap<>();
+        for (ProductReview review : reviews) {
+            Long productId = review.getProduct().getId();
+            ProductRatingStats stats = byProduct.computeIfAbsent(productId, ProductRatingStats::new);
+            stats.setReviewCount(stats.getReviewCount() + 1);
+            stats.setRatingSum(stats.getRatingSum() + review.getRating());
+        }
+        return new ArrayList<>(byProduct.values());
+    }
+
+    // orderCount orders of itemsPerOrder random products for one user
+    public static List<Order> orders(User user, List<Product> products, int orderCount, int itemsPerOrder, long seed) {
+        Random random = new Random(seed);
+        List<Order> orders = new ArrayList<>(orderCount);
+        for (int i = 0; i < orderCount; i++) {
+            List<OrderItem> items = new ArrayList<>(itemsPerOrder);
+            for (int j = 0; j < itemsPerOrder; j++) {
+                Product product = products.get(random.nextInt(products.size()));
+                items.add(new OrderItem(product, 1 + random.nextInt(3), product.getPrice(), null));
+            }
+            orders.add(new Order(user, items, Order.Status.COMPLETED));
+        }
+        return orders;
+    }
+}
@@ -0,0 +1,81 @@
+package com.CSC492.store.benchmark;
+
+import com.CSC492.store.util.CoPurchaseIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Related products lookup and order updates on the co-purchase index
+// orders pick products with a skewed distribution so a few products have long rows, like a real shop
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class CoPurchaseIndexBenchmark {
+
+    @Param({"10000", "100000"})
+    public int products;
+
+    @Param({"100000"})
+    public int orders;
+
+    private CoPurchaseIndex index;
+    private long[][] extraOrders;
+    private long[] lookupIds;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        index = new CoPurchaseIndex(20, 100);
+        for (int i = 0; i < orders; i++) {
+            index.addOrder(randomOrder(random));
+        }
+        extraOrders = new long[1024][];
+        lookupIds = new long[1024];
+        for (int i = 0; i < extraOrders.length; i++) {
+            extraOrders[i] = randomOrder(random);
+            lookupIds[i] = randomProduct(random);
+        }
+    }
+
+    @Benchmark
+    public long[] related() {
+        next = (next + 1) & 1023;
+        return index.related(lookupIds[next], 10);
+    }
+
+    @Benchmark
+    public void addOrder() {
+        next = (next + 1) & 1023;
+        index.addOrder(extraOrders[next]);
+    }
+
+    private long[] randomOrder(Random random) {
+        long[] ids = new long[2 + random.nextInt(5)];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = randomProduct(random);
+        }
+        return ids;
+    }
+
+    // squaring a uniform number favours the low ids
+    private long randomProduct(Random random) {
+        double r = random.nextDouble();
+        return 1 + (long) (r * r * products);
+    }
+}
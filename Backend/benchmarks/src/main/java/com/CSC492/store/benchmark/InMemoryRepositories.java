@@ -0,0 +1,50 @@
+package com.CSC492.store.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+// Builds Spring Data repository interfaces backed by in-memory lists, so the services
+// can be benchmarked without a database
+// only the methods given to answer() are implemented, anything else throws
+public class InMemoryRepositories<R> {
+
+    private final Class<R> repositoryType;
+    private final Map<String, Function<Object[], Object>> answers = new HashMap<>();
+
+    private InMemoryRepositories(Class<R> repositoryType) {
+        this.repositoryType = repositoryType;
+    }
+
+    public static <R> InMemoryRepositories<R> of(Class<R> repositoryType) {
+        return new InMemoryRepositories<>(repositoryType);
+    }
+
+    // every call to the method with this name returns answer(arguments)
+    public InMemoryRepositories<R> answer(String methodName, Function<Object[], Object> answer) {
+        answers.put(methodName, answer);
+        return this;
+    }
+
+    public R build() {
+        Object proxy = Proxy.newProxyInstance(repositoryType.getClassLoader(), new Class<?>[]{repositoryType}, (self, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                switch (method.getName()) {
+                    case "equals":
+                        return self == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(self);
+                    default:
+                        return repositoryType.getSimpleName() + " (in memory)";
+                }
+            }
+            Function<Object[], Object> answer = answers.get(method.getName());
+            if (answer == null) {
+                throw new UnsupportedOperationException(repositoryType.getSimpleName() + "." + method.getName() + " is not available in benchmarks");
+            }
+            return answer.apply(args);
+        });
+        return repositoryType.cast(proxy);
+    }
+}
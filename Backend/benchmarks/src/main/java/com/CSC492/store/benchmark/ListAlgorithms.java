@@ -0,0 +1,235 @@
+package com.CSC492.store.benchmark;
+
+import com.CSC492.store.model.Product;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// List based versions of the ProductAlgorithms methods that the application no longer uses,
+// only here as baselines for ProductAlgorithmsBenchmark
+final class ListAlgorithms {
+
+    private ListAlgorithms() {}
+
+    // below this many products a range is sorted with insertion sort, which is faster for tiny ranges
+    private static final int INSERTION_SORT_THRESHOLD = 32;
+
+    // default size above which the two halves are sorted in parallel on the common fork-join pool
+    static final int DEFAULT_PARALLEL_THRESHOLD = 8192;
+
+    // Merge sort for sorting by price, and newest, used by the listings before they were sorted by MySQL
+    // using the divide and conquer approach by splitting the list into two halves
+    // and recursively sorting each half and then merging the two sorted halves into one sorted list
+    // the recursion the method calls itself to sort smaller and smaller portions.
+    // Why we used this because it provides stable sorting 
+    // the products are copied into an array once and every merge reuses one scratch array of the same size,
+    // so the sort does not create new lists while it runs
+    // Time complexity: O(n log n)
+    public static List<Product> mergeSort(List<Product> list, Comparator<Product> comparator) {
+        return mergeSort(list, comparator, DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    // same as mergeSort above, ranges larger than parallelThreshold have their halves sorted on separate cores
+    // the comparator must be safe to call from several threads, which is true when it only reads data
+    public static List<Product> mergeSort(List<Product> list, Comparator<Product> comparator, int parallelThreshold) {
+        // this is the base case that if the list has 0 or 1 item, it is already sorted so return it the list as is
+        if (list.size() <= 1) {
+            return list;
+        }
+
+        Product[] items = list.toArray(new Product[0]);
+        // scratch space the merges copy into, allocated once for the whole sort
+        Product[] scratch = new Product[items.length];
+
+        if (items.length > parallelThreshold) {
+            ForkJoinPool.commonPool().invoke(new ParallelMergeSort(items, scratch, 0, items.length, comparator, Math.max(parallelThreshold, INSERTION_SORT_THRESHOLD)));
+        } else {
+            sortRange(items, scratch, 0, items.length, comparator);
+        }
+        return new ArrayList<>(Arrays.asList(items));
+    }
+
+    // sort items[from, to) on the current thread
+    private static void sortRange(Product[] items, Product[] scratch, int from, int to, Comparator<Product> comparator) {
+        if (to - from <= INSERTION_SORT_THRESHOLD) {
+            insertionSort(items, from, to, comparator);
+            return;
+        }
+        // get the middle index to split the range into two
+        int mid = (from + to) >>> 1;
+        sortRange(items, scratch, from, mid, comparator);
+        sortRange(items, scratch, mid, to, comparator);
+        merge(items, scratch, from, mid, to, comparator);
+    }
+
+    // fork-join task that sorts both halves at the same time when the range is large enough
+    private static class ParallelMergeSort extends RecursiveAction {
+        private final Product[] items;
+        private final Product[] scratch;
+        private final int from;
+        private final int to;
+        private final Comparator<Product> comparator;
+        private final int parallelThreshold;
+
+        ParallelMergeSort(Product[] items, Product[] scratch, int from, int to, Comparator<Product> comparator, int parallelThreshold) {
+            this.items = items;
+            this.scratch = scratch;
+            this.from = from;
+            this.to = to;
+            this.comparator = comparator;
+            this.parallelThreshold = parallelThreshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= parallelThreshold) {
+                sortRange(items, scratch, from, to, comparator);
+                return;
+            }
+            // the halves use separate parts of items and scratch, so they can run at the same time
+            int mid = (from + to) >>> 1;
+            invokeAll(new ParallelMergeSort(items, scratch, from, mid, comparator, parallelThreshold),
+                    new ParallelMergeSort(items, scratch, mid, to, comparator, parallelThreshold));
+            merge(items, scratch, from, mid, to, comparator);
+        }
+    }
+
+    // insertion sort for small ranges, stable because it only moves an item past strictly greater ones
+    private static void insertionSort(Product[] items, int from, int to, Comparator<Product> comparator) {
+        for (int i = from + 1; i < to; i++) {
+            Product current = items[i];
+            int j = i - 1;
+            while (j >= from && comparator.compare(items[j], current) > 0) {
+                items[j + 1] = items[j];
+                j--;
+            }
+            items[j + 1] = current;
+        }
+    }
+
+    // made a separate method for the merge, for merging the two sorted ranges [from, mid) and [mid, to)
+    private static void merge(Product[] items, Product[] scratch, int from, int mid, int to, Comparator<Product> comparator) {
+        // if the last item on the left is not greater than the first on the right, the range is already sorted
+        if (comparator.compare(items[mid - 1], items[mid]) <= 0) {
+            return;
+        }
+
+        // copy the range into the scratch array and merge back into items
+        System.arraycopy(items, from, scratch, from, to - from);
+
+        // this the index for the left range
+        int i = from;
+        // and index for the right range, or pointer as well
+        int j = mid;
+        int k = from;
+
+        //loop while both ranges still have elements
+        while (i < mid && j < to) {
+            // if left[i] is less than or equal to right[j], take left[i], this keeps the sort stable
+            if (comparator.compare(scratch[i], scratch[j]) <= 0) {
+                items[k++] = scratch[i++];
+            }
+            else {
+                //right[j] is smaller so take right[j]
+                items[k++] = scratch[j++];
+            }
+        }
+        //after the loop ends one of the ranges may still have leftover elements
+        // leftovers on the right are already in place, only the left ones need copying
+        System.arraycopy(scratch, i, items, k, mid - i);
+    }
+
+    // Top-K selection over a list of products with a Comparator, the first version of the
+    // recommendation ranking, kept to compare with ProductAlgorithms.topKIndexes
+    // keeps the best k seen so far in a bounded heap where the root is the worst of them,
+    // and only the k survivors are sorted at the end
+    // ties are broken by the position in the input list, so the result is the same as
+    // mergeSort(list, comparator).subList(0, k)
+    // if k is invalid or not smaller than the list, the whole list is sorted
+    // Time complexity: O(n log k), extra memory O(k)
+    public static List<Product> topK(List<Product> list, int k, Comparator<Product> comparator) {
+        if (k <= 0 || k >= list.size()) {
+            return mergeSort(list, comparator);
+        }
+
+        // copy to an array once so every get() is constant time, even for linked lists
+        Product[] items = list.toArray(new Product[0]);
+
+        // heap of input positions, heap[0] is the worst product kept so far
+        int[] heap = new int[k];
+        int heapSize = 0;
+
+        for (int i = 0; i < items.length; i++) {
+            if (heapSize < k) {
+                // heap not full yet, add and move up while the parent is better
+                int child = heapSize++;
+                heap[child] = i;
+                while (child > 0) {
+                    int parent = (child - 1) / 2;
+                    if (compareAt(items, heap[parent], heap[child], comparator) >= 0) {
+                        break;
+                    }
+                    swap(heap, parent, child);
+                    child = parent;
+                }
+            } else if (compareAt(items, i, heap[0], comparator) < 0) {
+                // better than the worst kept product, replace the root and move it down
+                heap[0] = i;
+                siftDown(items, heap, heapSize, comparator);
+            }
+        }
+
+        // sort the k survivors, best first
+        Integer[] kept = new Integer[heapSize];
+        for (int i = 0; i < heapSize; i++) {
+            kept[i] = heap[i];
+        }
+        Arrays.sort(kept, (a, b) -> compareAt(items, a, b, comparator));
+
+        List<Product> result = new ArrayList<>(heapSize);
+        for (Integer position : kept) {
+            result.add(items[position]);
+        }
+        return result;
+    }
+
+    // move the root down until both children are better than it
+    private static void siftDown(Product[] items, int[] heap, int heapSize, Comparator<Product> comparator) {
+        int parent = 0;
+        while (true) {
+            int left = 2 * parent + 1;
+            int right = left + 1;
+            int worst = parent;
+            if (left < heapSize && compareAt(items, heap[left], heap[worst], comparator) > 0) {
+                worst = left;
+            }
+            if (right < heapSize && compareAt(items, heap[right], heap[worst], comparator) > 0) {
+                worst = right;
+            }
+            if (worst == parent) {
+                return;
+            }
+            swap(heap, parent, worst);
+            parent = worst;
+        }
+    }
+
+    // compare two input positions with the comparator, the earlier position wins a tie
+    private static int compareAt(Product[] items, int i, int j, Comparator<Product> comparator) {
+        int compare = comparator.compare(items[i], items[j]);
+        if (compare != 0) {
+            return compare;
+        }
+        return Integer.compare(i, j);
+    }
+
+    private static void swap(int[] heap, int i, int j) {
+        int temp = heap[i];
+        heap[i] = heap[j];
+        heap[j] = temp;
+    }
+}
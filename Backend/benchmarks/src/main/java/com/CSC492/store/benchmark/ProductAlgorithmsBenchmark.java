@@ -0,0 +1,117 @@
+package com.CSC492.store.benchmark;
+
+import com.CSC492.store.model.Product;
+import com.CSC492.store.util.ProductAlgorithms;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Sorting, searching and top-K selection from ProductAlgorithms on catalogs of different sizes
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ProductAlgorithmsBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    private List<Product> shuffled;
+    private List<Product> sortedByName;
+    private String existingName;
+    private Comparator<Product> byPrice;
+    // average rating of about half the products, the way the recommendations look them up
+    private Map<Long, Double> ratings;
+
+    @Setup
+    public void setUp() {
+        shuffled = CatalogData.products(size, 42);
+        Collections.shuffle(shuffled, new Random(42));
+
+        sortedByName = new ArrayList<>(shuffled);
+        sortedByName.sort(Comparator.comparing(Product::getName, String.CASE_INSENSITIVE_ORDER));
+        existingName = sortedByName.get(size / 2).getName().toLowerCase();
+
+        byPrice = Comparator.comparing(Product::getPrice);
+
+        Random random = new Random(43);
+        ratings = new HashMap<>();
+        for (Product product : shuffled) {
+            if (random.nextBoolean()) {
+                ratings.put(product.getId(), 1 + random.nextInt(41) / 10.0);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<Product> mergeSortByPrice() {
+        return ListAlgorithms.mergeSort(shuffled, byPrice);
+    }
+
+    @Benchmark
+    public List<Product> mergeSortByPriceSingleThread() {
+        return ListAlgorithms.mergeSort(shuffled, byPrice, Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public List<Product> binarySearchByName() {
+        return ProductAlgorithms.binarySearch(sortedByName, existingName);
+    }
+
+    @Benchmark
+    public List<Product> topFiftyByPrice() {
+        return ListAlgorithms.topK(shuffled, 50, byPrice);
+    }
+
+    // top-rated ranking with the rating looked up in the map on every comparison
+    @Benchmark
+    public List<Product> topFiftyByRatingMapComparator() {
+        Comparator<Product> byRating = (product1, product2) -> {
+            int compare = Double.compare(ratings.getOrDefault(product2.getId(), 0.0), ratings.getOrDefault(product1.getId(), 0.0));
+            if (compare != 0) {
+                return compare;
+            }
+            return Long.compare(product2.getId(), product1.getId());
+        };
+        return ListAlgorithms.topK(shuffled, 50, byRating);
+    }
+
+    // same ranking with the ratings looked up once into primitive arrays
+    @Benchmark
+    public int[] topFiftyByRatingScoreArrays() {
+        double[] scores = new double[shuffled.size()];
+        long[] ids = new long[shuffled.size()];
+        for (int i = 0; i < scores.length; i++) {
+            Product product = shuffled.get(i);
+            scores[i] = ratings.getOrDefault(product.getId(), 0.0);
+            ids[i] = product.getId();
+        }
+        return ProductAlgorithms.topKIndexes(scores.length, 50, (i, j) -> {
+            int compare = Double.compare(scores[j], scores[i]);
+            if (compare != 0) {
+                return compare;
+            }
+            return Long.compare(ids[j], ids[i]);
+        });
+    }
+}
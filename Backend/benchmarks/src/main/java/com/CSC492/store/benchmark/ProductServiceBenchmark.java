@@ -0,0 +1,161 @@
+package com.CSC492.store.benchmark;
+
+import com.CSC492.store.model.Order;
+import com.CSC492.store.model.Product;
+import com.CSC492.store.model.ProductRatingStats;
+import com.CSC492.store.model.ProductReview;
+import com.CSC492.store.model.User;
+import com.CSC492.store.model.UserPurchaseProfile;
+import com.CSC492.store.repository.OrderRepository;
+import com.CSC492.store.repository.ProductNameView;
+import com.CSC492.store.repository.ProductRatingStatsRepository;
+import com.CSC492.store.repository.ProfiledOrderRepository;
+import com.CSC492.store.repository.ProductRepository;
+import com.CSC492.store.repository.ProductReviewRepository;
+import com.CSC492.store.repository.UserPurchaseProfileRepository;
+import com.CSC492.store.service.CatalogSnapshotService;
+import com.CSC492.store.service.ProductRatingService;
+import com.CSC492.store.service.ProductSearchService;
+import com.CSC492.store.service.ProductService;
+import com.CSC492.store.service.UserProfileService;
+import com.CSC492.store.util.RecommendationCandidates;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// ProductService listing and recommendation methods with in-memory repositories
+// the listing runs on the catalog snapshot, the recommendations on the repository lists and profile,
+// so the numbers measure our code and not MySQL
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ProductServiceBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    private ProductService productService;
+    private RecommendationCandidates candidates;
+    private UserPurchaseProfile profile;
+
+    @Setup
+    public void setUp() {
+        List<Product> products = CatalogData.products(size, 42);
+        List<User> users = CatalogData.users(1000);
+        // about one review per product
+        List<ProductReview> reviews = CatalogData.reviews(products, users, size, 43);
+        // the benchmarked customer has a long history, 50 orders of 5 items
+        List<Order> orders = CatalogData.orders(users.get(0), products, 50, 5, 44);
+
+        List<ProductNameView> names = new ArrayList<>(products.size());
+        for (Product product : products) {
+            names.add(new ProductNameView() {
+                public Long getId() {
+                    return product.getId();
+                }
+                public String getName() {
+                    return product.getName();
+                }
+            });
+        }
+
+        ProductRepository productRepository = InMemoryRepositories.of(ProductRepository.class)
+                .answer("findAll", args -> new ArrayList<>(products))
+                .answer("findAllNames", args -> names)
+                .build();
+        List<ProductRatingStats> ratingStats = CatalogData.ratingStats(reviews);
+        ProductRatingStatsRepository ratingStatsRepository = InMemoryRepositories.of(ProductRatingStatsRepository.class)
+                .answer("findAll", args -> ratingStats)
+                .build();
+        ProductReviewRepository reviewRepository = InMemoryRepositories.of(ProductReviewRepository.class)
+                .answer("findAll", args -> reviews)
+                .build();
+        OrderRepository orderRepository = InMemoryRepositories.of(OrderRepository.class)
+                .answer("findByUserId", args -> orders)
+                .build();
+        Map<Long, UserPurchaseProfile> profiles = new HashMap<>();
+        UserPurchaseProfileRepository profileRepository = InMemoryRepositories.of(UserPurchaseProfileRepository.class)
+                .answer("findById", args -> Optional.ofNullable(profiles.get((Long) args[0])))
+                .answer("findForUpdate", args -> Optional.ofNullable(profiles.get((Long) args[0])))
+                .answer("save", args -> {
+                    UserPurchaseProfile profile = (UserPurchaseProfile) args[0];
+                    profiles.put(profile.getUserId(), profile);
+                    return profile;
+                })
+                .build();
+
+        CatalogSnapshotService catalogSnapshotService = new CatalogSnapshotService(productRepository, true);
+        catalogSnapshotService.reload();
+        ProductSearchService productSearchService = new ProductSearchService(productRepository);
+        productSearchService.load();
+
+        // every order is new, so marking it counted always succeeds
+        ProfiledOrderRepository profiledOrderRepository = InMemoryRepositories.of(ProfiledOrderRepository.class)
+                .answer("markProfiled", args -> 1)
+                .build();
+
+        ProductRatingService productRatingService = new ProductRatingService(ratingStatsRepository, reviewRepository);
+        // the profile is built the same way OrderService keeps it, one order at a time
+        UserProfileService userProfileService = new UserProfileService(profileRepository, orderRepository, profiledOrderRepository, null);
+        for (Order order : orders) {
+            userProfileService.recordOrder(order);
+        }
+
+        // what the batch job shares between customers, and one customer's part of it
+        candidates = RecommendationCandidates.of(products, productRatingService.averageRatings());
+        profile = profiles.get(1L);
+
+        productService = new ProductService(productRepository, productRatingService, userProfileService, catalogSnapshotService, productSearchService, event -> {});
+    }
+
+    @Benchmark
+    public Page<Product> getProductsFirstPage() {
+        return productService.getProducts(null, null, null, null, null, 0, 100, "id", "asc");
+    }
+
+    @Benchmark
+    public Page<Product> getProductsFilteredByPrice() {
+        return productService.getProducts("Electronics", null, new BigDecimal("20.00"), new BigDecimal("200.00"), true, 2, 100, "price", "desc");
+    }
+
+    @Benchmark
+    public Page<Product> getProductsSearch() {
+        return productService.getProducts(null, "wireless mouse", null, null, null, 0, 100, "price", "asc");
+    }
+
+    @Benchmark
+    public List<Product> getTopRatedProducts() {
+        return productService.getTopRatedProducts(50);
+    }
+
+    @Benchmark
+    public List<Product> getRecommendationsForUser() {
+        return productService.getRecommendationsForUser(1L, 50);
+    }
+
+    @Benchmark
+    public List<Product> rankWithSharedCandidates() {
+        return candidates.recommend(profile.getCategoryCounts(), profile.getPurchasedProductIds(), 50);
+    }
+}
@@ -0,0 +1,24 @@
+package com.CSC492.store.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Entry point of benchmarks.jar
+// same command line as the JMH launcher, but the gc profiler is always on so every run
+// reports the allocation rate (gc.alloc.rate.norm = bytes per operation) next to the throughput
+// java -jar target/benchmarks.jar                               all benchmarks
+// java -jar target/benchmarks.jar ProductAlgorithms -p size=10000 one class, one size
+public class StoreBenchmarks {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        Options options = new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,62 @@
+package com.CSC492.store.config;
+
+import com.CSC492.store.event.OrderPlacedEvent;
+import com.CSC492.store.event.ProductChangedEvent;
+import com.CSC492.store.event.ReviewChangedEvent;
+import com.CSC492.store.service.CatalogSnapshotService;
+import com.CSC492.store.service.CoPurchaseService;
+import com.CSC492.store.service.DomainEventOutbox;
+import com.CSC492.store.service.PersonalRecommendationService;
+import com.CSC492.store.service.ProductRatingService;
+import com.CSC492.store.service.TopRatedLeaderboard;
+import com.CSC492.store.service.TrendingService;
+import com.CSC492.store.service.UserProfileService;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.context.annotation.Configuration;
+
+// Everything that happens after an order, a review or a product change, in one place
+// each handler gets the events of a batch from DomainEventOutbox once they committed
+// the names are stored on pending events, renaming a handler delivers its pending events again
+@Configuration
+public class DomainEventHandlers {
+
+    private final DomainEventOutbox outbox;
+    private final UserProfileService userProfileService;
+    private final CoPurchaseService coPurchaseService;
+    private final PersonalRecommendationService personalRecommendationService;
+    private final TrendingService trendingService;
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final TopRatedLeaderboard topRatedLeaderboard;
+    private final ProductRatingService productRatingService;
+
+    public DomainEventHandlers(DomainEventOutbox outbox, UserProfileService userProfileService, CoPurchaseService coPurchaseService,
+                               PersonalRecommendationService personalRecommendationService, TrendingService trendingService,
+                               CatalogSnapshotService catalogSnapshotService, TopRatedLeaderboard topRatedLeaderboard,
+                               ProductRatingService productRatingService) {
+        this.outbox = outbox;
+        this.userProfileService = userProfileService;
+        this.coPurchaseService = coPurchaseService;
+        this.personalRecommendationService = personalRecommendationService;
+        this.trendingService = trendingService;
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.topRatedLeaderboard = topRatedLeaderboard;
+        this.productRatingService = productRatingService;
+    }
+
+    @PostConstruct
+    public void register() {
+        outbox.subscribe(OrderPlacedEvent.class, "userProfile", userProfileService::onOrdersPlaced);
+        outbox.subscribe(OrderPlacedEvent.class, "coPurchase", coPurchaseService::onOrdersPlaced);
+        outbox.subscribe(OrderPlacedEvent.class, "personalRecommendations", personalRecommendationService::onOrdersPlaced);
+        outbox.subscribe(OrderPlacedEvent.class, "trending", trendingService::onOrdersPlaced);
+        outbox.subscribe(OrderPlacedEvent.class, "catalogSnapshot", catalogSnapshotService::onOrdersPlaced);
+
+        outbox.subscribe(ReviewChangedEvent.class, "topRated", topRatedLeaderboard::onReviewsChanged);
+        outbox.subscribe(ReviewChangedEvent.class, "ratingAverages", productRatingService::onReviewsChanged);
+
+        outbox.subscribe(ProductChangedEvent.class, "coPurchase", coPurchaseService::onProductsChanged);
+        outbox.subscribe(ProductChangedEvent.class, "topRated", topRatedLeaderboard::onProductsChanged);
+        outbox.subscribe(ProductChangedEvent.class, "ratingAverages", productRatingService::onProductsChanged);
+    }
+}
@@ -0,0 +1,37 @@
+package com.CSC492.store.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Moves the id_generators rows past the ids already in the tables
+// orders, order items, reviews, wishlist entries and outbox events used AUTO_INCREMENT ids before, so without this
+// the first ids handed out by the table generator would collide with existing rows
+// runs on every start after Hibernate created the tables and before any request is served,
+// a row that is already ahead is left as it is
+@Component
+public class IdGeneratorMigration {
+
+    // pkColumnValue of each @TableGenerator, which is also the table name
+    private static final List<String> TABLES = List.of("orders", "order_items", "product_reviews", "wishlist", "outbox_events");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // the EntityManagerFactory is only asked for so the schema update runs first
+    public IdGeneratorMigration(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void migrate() {
+        for (String table : TABLES) {
+            // the pooled-lo optimizer hands out next_val first, so it must be above the highest id
+            jdbcTemplate.update("INSERT INTO id_generators (entity, next_val) "
+                    + "SELECT ?, m.next_id FROM (SELECT COALESCE(MAX(id), 0) + 1 AS next_id FROM " + table + ") m "
+                    + "ON DUPLICATE KEY UPDATE next_val = GREATEST(id_generators.next_val, m.next_id)", table);
+        }
+    }
+}
@@ -1,15 +1,31 @@
 package com.CSC492.store.controller;
 
+import com.CSC492.store.dto.OrderSummaryResponse;
 import com.CSC492.store.model.Order;
 import com.CSC492.store.model.User;
+import com.CSC492.store.service.DomainEventOutbox;
+import com.CSC492.store.service.OrderExportService;
 import com.CSC492.store.service.OrderService;
+import com.CSC492.store.service.PersonalRecommendationService;
+import com.CSC492.store.service.ProductRatingService;
+import com.CSC492.store.service.ProductViewService;
+import com.CSC492.store.service.TopRatedLeaderboard;
+import com.CSC492.store.service.UserProfileService;
 import com.CSC492.store.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -18,11 +34,25 @@ public class AdminController {
 
     private final UserService userService;
     private final OrderService orderService;
+    private final ProductRatingService productRatingService;
+    private final TopRatedLeaderboard topRatedLeaderboard;
+    private final UserProfileService userProfileService;
+    private final PersonalRecommendationService personalRecommendationService;
+    private final ProductViewService productViewService;
+    private final OrderExportService orderExportService;
+    private final DomainEventOutbox domainEventOutbox;
 
     @Autowired
-    public AdminController(UserService userService, OrderService orderService) {
+    public AdminController(UserService userService, OrderService orderService, ProductRatingService productRatingService, TopRatedLeaderboard topRatedLeaderboard, UserProfileService userProfileService, PersonalRecommendationService personalRecommendationService, ProductViewService productViewService, OrderExportService orderExportService, DomainEventOutbox domainEventOutbox) {
         this.userService = userService;
         this.orderService = orderService;
+        this.productRatingService = productRatingService;
+        this.topRatedLeaderboard = topRatedLeaderboard;
+        this.userProfileService = userProfileService;
+        this.personalRecommendationService = personalRecommendationService;
+        this.productViewService = productViewService;
+        this.orderExportService = orderExportService;
+        this.domainEventOutbox = domainEventOutbox;
     }
 
     // Get all users, Admin only
@@ -58,6 +88,75 @@ public class AdminController {
         return ResponseEntity.ok(orders);
     }
 
+    // Order summaries one page at a time, Admin only
+    // /api/admin/orders/summaries?status=completed&userId=3&from=2025-01-01&to=2025-01-31&size=50
+    // pass the nextCursor of the previous response as before to get the next page,
+    // the items of an order come from /api/admin/orders/{id}
+    @GetMapping("/orders/summaries")
+    public ResponseEntity<?> getOrderSummaries(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Long before,
+            @RequestParam(defaultValue = "50") int size,
+            @AuthenticationPrincipal User user) {
+        if (user == null || user.getRole() != User.Role.ADMIN) {
+            return ResponseEntity.status(403).body("Forbidden");
+        }
+        if (size <= 0 || size > 500) {
+            return ResponseEntity.badRequest().body("Invalid size");
+        }
+
+        Order.Status orderStatus = null;
+        if (status != null && !status.isEmpty()) {
+            try {
+                orderStatus = Order.Status.valueOf(status.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body("Invalid status value");
+            }
+        }
+
+        OrderSummaryResponse orders = orderService.getOrderSummaries(orderStatus, userId, from, to, before, size);
+        return ResponseEntity.ok(orders);
+    }
+
+    // Download the order history as a file, Admin only
+    // /api/admin/orders/export?format=csv&from=2025-01-01&to=2025-12-31, format csv or ndjson, dates optional
+    // the file is written while the orders are read, it is never built in memory
+    @GetMapping("/orders/export")
+    public ResponseEntity<?> exportOrders(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @AuthenticationPrincipal User user) {
+        if (user == null || user.getRole() != User.Role.ADMIN) {
+            return ResponseEntity.status(403).body("Forbidden");
+        }
+
+        OrderExportService.Format exportFormat;
+        try {
+            exportFormat = OrderExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Invalid format");
+        }
+
+        MediaType type;
+        String fileName;
+        if (exportFormat == OrderExportService.Format.CSV) {
+            type = new MediaType("text", "csv", StandardCharsets.UTF_8);
+            fileName = "orders.csv";
+        } else {
+            type = MediaType.APPLICATION_NDJSON;
+            fileName = "orders.ndjson";
+        }
+        StreamingResponseBody body = out -> orderExportService.export(exportFormat, from, to, out);
+        return ResponseEntity.ok()
+                .contentType(type)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(body);
+    }
+
     // Get a specific order by ID, Admin only
     @GetMapping("/orders/{id}")
     public ResponseEntity<?> getOrderById(@PathVariable Long id, @AuthenticationPrincipal User user) {
@@ -93,6 +192,92 @@ public class AdminController {
         }
     }
 
+    // Rebuild the product rating totals from the reviews, Admin only
+    @PostMapping("/ratings/rebuild")
+    public ResponseEntity<?> rebuildRatings(@AuthenticationPrincipal User user) {
+        if (user == null || user.getRole() != User.Role.ADMIN) {
+            return ResponseEntity.status(403).body("Forbidden");
+        }
+
+        int products = productRatingService.rebuildAll();
+        return ResponseEntity.ok("Rating totals rebuilt for " + products + " products");
+    }
+
+    // Rebuild every customer's purchase profile from their orders, Admin only
+    @PostMapping("/profiles/backfill")
+    public ResponseEntity<?> backfillProfiles(@AuthenticationPrincipal User user) {
+        if (user == null || user.getRole() != User.Role.ADMIN) {
+            return ResponseEntity.status(403).body("Forbidden");
+        }
+
+        int profiles = userProfileService.backfillAll();
+        return ResponseEntity.ok("Purchase profiles rebuilt for " + profiles + " customers");
+    }
+
+    // Recompute every active customer's personal recommendations, Admin only
+    @PostMapping("/recommendations/rebuild")
+    public ResponseEntity<?> rebuildRecommendations(@AuthenticationPrincipal User user) {
+        if (user == null || user.getRole() != User.Role.ADMIN) {
+            return ResponseEntity.status(403).body("Forbidden");
+        }
+
+        int customers = personalRecommendationService.rebuildAll();
+        return ResponseEntity.ok("Recommendations computed for " + customers + " customers");
+    }
+
+    // Top n recommendations for many customers at once, Admin only
+    // body: JSON array of user ids, response: one JSON line per customer, sent while the rest is computed
+    @PostMapping("/recommendations/bulk")
+    public ResponseEntity<?> bulkRecommendations(@RequestBody List<Long> userIds, @RequestParam(defaultValue = "20") int n, @AuthenticationPrincipal User user) {
+        if (user == null || user.getRole() != User.Role.ADMIN) {
+            return ResponseEntity.status(403).body("Forbidden");
+        }
+        if (n <= 0 || n > 1000) {
+            return ResponseEntity.badRequest().body("Invalid number of products");
+        }
+        if (userIds == null || userIds.contains(null)) {
+            return ResponseEntity.badRequest().body("Invalid user ids");
+        }
+
+        StreamingResponseBody body = out -> personalRecommendationService.writeBulkRecommendations(userIds, n, out);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    // Top-rated leaderboard last refresh time and build duration, Admin only
+    @GetMapping("/leaderboard")
+    public ResponseEntity<?> getLeaderboardStatus(@AuthenticationPrincipal User user) {
+        if (user == null || user.getRole() != User.Role.ADMIN) {
+            return ResponseEntity.status(403).body("Forbidden");
+        }
+
+        return ResponseEntity.ok(topRatedLeaderboard.getStatus());
+    }
+
+    // Most viewed products and the state of the view counting, Admin only
+    @GetMapping("/views")
+    public ResponseEntity<?> getViewReport(@RequestParam(defaultValue = "50") int n, @AuthenticationPrincipal User user) {
+        if (user == null || user.getRole() != User.Role.ADMIN) {
+            return ResponseEntity.status(403).body("Forbidden");
+        }
+        if (n <= 0) {
+            return ResponseEntity.badRequest().body("Invalid number of products");
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>(productViewService.getStatus());
+        report.put("mostViewed", productViewService.getMostViewed(n));
+        return ResponseEntity.ok(report);
+    }
+
+    // Outbox of the post-order/review/product events: pending, failed and handled counts, Admin only
+    @GetMapping("/events")
+    public ResponseEntity<?> getEventStatus(@AuthenticationPrincipal User user) {
+        if (user == null || user.getRole() != User.Role.ADMIN) {
+            return ResponseEntity.status(403).body("Forbidden");
+        }
+
+        return ResponseEntity.ok(domainEventOutbox.getStatus());
+    }
+
     // Create a new admin (only for existing ADMIN users)
     @PostMapping("/admins")
     public ResponseEntity<?> createAdmin(@RequestBody User newAdmin, @AuthenticationPrincipal User currentUser) {
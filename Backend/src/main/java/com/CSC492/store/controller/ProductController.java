@@ -1,8 +1,15 @@
 package com.CSC492.store.controller;
 
+import com.CSC492.store.dto.ProductFacets;
+import com.CSC492.store.dto.ProductScrollResponse;
 import com.CSC492.store.model.Product;
 import com.CSC492.store.model.User;
+import com.CSC492.store.service.CoPurchaseService;
+import com.CSC492.store.service.PersonalRecommendationService;
+import com.CSC492.store.service.ProductViewService;
 import com.CSC492.store.service.ProductService;
+import com.CSC492.store.service.TopRatedLeaderboard;
+import com.CSC492.store.service.TrendingService;
 import com.CSC492.store.service.UserService;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -25,11 +32,21 @@ public class ProductController {
 
     private final ProductService productService;
     private final UserService userService;
+    private final TopRatedLeaderboard topRatedLeaderboard;
+    private final CoPurchaseService coPurchaseService;
+    private final PersonalRecommendationService personalRecommendationService;
+    private final TrendingService trendingService;
+    private final ProductViewService productViewService;
 
     @Autowired
-    public ProductController(ProductService productService, UserService userService) {
+    public ProductController(ProductService productService, UserService userService, TopRatedLeaderboard topRatedLeaderboard, CoPurchaseService coPurchaseService, PersonalRecommendationService personalRecommendationService, TrendingService trendingService, ProductViewService productViewService) {
         this.productService = productService;
         this.userService = userService;
+        this.topRatedLeaderboard = topRatedLeaderboard;
+        this.coPurchaseService = coPurchaseService;
+        this.personalRecommendationService = personalRecommendationService;
+        this.trendingService = trendingService;
+        this.productViewService = productViewService;
     }
 
     // Create product (Admin only)
@@ -44,9 +61,21 @@ public class ProductController {
     @PreAuthorize("permitAll()")
     public ResponseEntity<?> getProductById(@PathVariable Long id) {
         Optional<Product> product = productService.getProductById(id);
+        // count the view in memory only, the database is updated in the background
+        if (product.isPresent()) {
+            trendingService.recordView(id);
+            productViewService.recordView(id);
+        }
         return product.map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
     }
 
+    // Customers who bought this also bought
+    @GetMapping("/{id}/related")
+    @PreAuthorize("permitAll()")
+    public ResponseEntity<List<Product>> getRelatedProducts(@PathVariable Long id, @RequestParam(defaultValue = "10") int n) {
+        return ResponseEntity.ok(coPurchaseService.getRelatedProducts(id, n));
+    }
+
     // Get all products with sorting, filtering, and search
     @GetMapping
     @PreAuthorize("permitAll()")
@@ -64,6 +93,70 @@ public class ProductController {
         return ResponseEntity.ok(products);
     }
 
+    // Filter counts for the current query: products per category, in stock / out of stock and a price histogram
+    @GetMapping("/facets")
+    @PreAuthorize("permitAll()")
+    public ResponseEntity<?> getFacets(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) Boolean inStock,
+            @RequestParam(defaultValue = "10") int buckets) {
+        if (buckets <= 0 || buckets > 100) {
+            return ResponseEntity.badRequest().body("Invalid number of buckets");
+        }
+        ProductFacets facets = productService.getFacets(category, search, minPrice, maxPrice, inStock, buckets);
+        return ResponseEntity.ok(facets);
+    }
+
+    // Get products with a cursor instead of a page number, for infinite scrolling
+    // pass the nextCursor of the previous response to get the next page
+    @GetMapping("/scroll")
+    @PreAuthorize("permitAll()")
+    public ResponseEntity<?> scrollProducts(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) Boolean inStock,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int size,
+            @RequestParam(defaultValue = "id") String sortBy,
+            @RequestParam(defaultValue = "asc") String sortDir) {
+        if (size <= 0) {
+            return ResponseEntity.badRequest().body("Invalid size");
+        }
+        try {
+            ProductScrollResponse products = productService.scrollProducts(category, search, minPrice, maxPrice, inStock, cursor, size, sortBy, sortDir);
+            return ResponseEntity.ok(products);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Invalid cursor");
+        }
+    }
+
+    // Trending products by units sold or detail page views in the last hour or day
+    // /api/products/trending?window=hour&by=sales&n=20
+    @GetMapping("/trending")
+    @PreAuthorize("permitAll()")
+    public ResponseEntity<?> getTrending(
+            @RequestParam(defaultValue = "hour") String window,
+            @RequestParam(defaultValue = "sales") String by,
+            @RequestParam(defaultValue = "20") int n) {
+        if (n <= 0) {
+            return ResponseEntity.badRequest().body("Invalid number of products");
+        }
+        TrendingService.Window trendWindow;
+        TrendingService.Metric metric;
+        try {
+            trendWindow = TrendingService.Window.valueOf(window.toUpperCase());
+            metric = TrendingService.Metric.valueOf(by.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Invalid window or metric");
+        }
+        return ResponseEntity.ok(trendingService.getTrending(trendWindow, metric, n));
+    }
+
     // Get by category
     @GetMapping("/category/{category}")
     public ResponseEntity<List<Product>> getByCategory(@PathVariable String category) {
@@ -71,22 +164,22 @@ public class ProductController {
     }
 
     // Recommendations
-    // Top-rated products
+    // Top-rated products, served from the precomputed leaderboard
     @GetMapping("/recommendations/top-rated")
     @PreAuthorize("permitAll()")
     public ResponseEntity<List<Product>> getTopRatedProducts(@RequestParam(defaultValue = "50") int n) {
-        return ResponseEntity.ok(productService.getTopRatedProducts(n));
+        return ResponseEntity.ok(topRatedLeaderboard.getTopRated(n));
     }
 
-    // Personalized-based: user's order history
+    // Personalized-based: user's order history, precomputed by the nightly batch job
     @GetMapping("/recommendations/personal")
     @PreAuthorize("hasRole('CUSTOMER') or hasRole('ADMIN')")
     public ResponseEntity<List<Product>> getPersonalRecommendations(@AuthenticationPrincipal User currentUser, @RequestParam(defaultValue = "50") int n ) {
         if (currentUser == null) {
             // Fallback to top rated if somehow no principal
-            return ResponseEntity.ok(productService.getTopRatedProducts(n));
+            return ResponseEntity.ok(topRatedLeaderboard.getTopRated(n));
         }
-        return ResponseEntity.ok(productService.getRecommendationsForUser(currentUser.getId(), n));
+        return ResponseEntity.ok(personalRecommendationService.getRecommendations(currentUser.getId(), n));
     }
 
     // Update product (Admin only)
@@ -1,11 +1,14 @@
 package com.CSC492.store.controller;
 
+import com.CSC492.store.model.ProductRatingStats;
 import com.CSC492.store.model.ProductReview;
 import com.CSC492.store.model.User;
+import com.CSC492.store.service.ProductRatingService;
 import com.CSC492.store.service.ProductReviewService;
 import com.CSC492.store.service.UserService;
 import com.CSC492.store.security.JwtUtil;
 
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
@@ -18,11 +21,13 @@ public class ProductReviewController {
     private final ProductReviewService reviewService;
     private final JwtUtil jwtUtil;
     private final UserService userService;
+    private final ProductRatingService ratingService;
 
-    public ProductReviewController(ProductReviewService reviewService, JwtUtil jwtUtil, UserService userService) {
+    public ProductReviewController(ProductReviewService reviewService, JwtUtil jwtUtil, UserService userService, ProductRatingService ratingService) {
         this.reviewService = reviewService;
         this.jwtUtil = jwtUtil;
         this.userService = userService;
+        this.ratingService = ratingService;
     }
 
     private User getUser(String token) {
@@ -35,6 +40,22 @@ public class ProductReviewController {
         return reviewService.getReviews(productId);
     }
 
+    // review totals of a product: count, sum, average and stars
+    @GetMapping("/{productId}/stats")
+    public ProductRatingStats getStats(@PathVariable Long productId) {
+        return ratingService.getStats(productId);
+    }
+
+    // review totals of many products at once, for example the products of a listing page
+    // /api/reviews/stats?productIds=1,2,3
+    @GetMapping("/stats")
+    public ResponseEntity<?> getStats(@RequestParam List<Long> productIds) {
+        if (productIds.size() > 500) {
+            return ResponseEntity.badRequest().body("Too many products");
+        }
+        return ResponseEntity.ok(ratingService.getStats(productIds));
+    }
+
     @PostMapping("/{productId}")
     public ProductReview addReview(@RequestHeader("Authorization") String token, @PathVariable Long productId, @RequestBody ReviewRequest req) {
         User user = getUser(token);
@@ -0,0 +1,89 @@
+package com.CSC492.store.dto;
+
+import com.CSC492.store.model.Order;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// One row of the admin order list, built directly by the query
+// only the order columns, the customer and the number of lines, no items or products
+public class OrderSummary {
+    private Long id;
+    private Long userId;
+    private String customerName;
+    private String customerEmail;
+    private BigDecimal totalPrice;
+    private Order.Status status;
+    private LocalDateTime createdAt;
+    private long itemCount;
+
+    public OrderSummary() {}
+
+    public OrderSummary(Long id, Long userId, String customerName, String customerEmail, BigDecimal totalPrice,
+                        Order.Status status, LocalDateTime createdAt, long itemCount) {
+        this.id = id;
+        this.userId = userId;
+        this.customerName = customerName;
+        this.customerEmail = customerEmail;
+        this.totalPrice = totalPrice;
+        this.status = status;
+        this.createdAt = createdAt;
+        this.itemCount = itemCount;
+    }
+
+    public Long getId() {
+        return id;
+    }
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getCustomerName() {
+        return customerName;
+    }
+    public void setCustomerName(String customerName) {
+        this.customerName = customerName;
+    }
+
+    public String getCustomerEmail() {
+        return customerEmail;
+    }
+    public void setCustomerEmail(String customerEmail) {
+        this.customerEmail = customerEmail;
+    }
+
+    public BigDecimal getTotalPrice() {
+        return totalPrice;
+    }
+    public void setTotalPrice(BigDecimal totalPrice) {
+        this.totalPrice = totalPrice;
+    }
+
+    public Order.Status getStatus() {
+        return status;
+    }
+    public void setStatus(Order.Status status) {
+        this.status = status;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public long getItemCount() {
+        return itemCount;
+    }
+    public void setItemCount(long itemCount) {
+        this.itemCount = itemCount;
+    }
+}
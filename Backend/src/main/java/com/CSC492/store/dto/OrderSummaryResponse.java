@@ -0,0 +1,40 @@
+package com.CSC492.store.dto;
+
+import java.util.List;
+
+// One page of the admin order list, newest orders first
+// nextCursor is the id to pass as "before" for the following page, it is null on the last page
+public class OrderSummaryResponse {
+    private List<OrderSummary> content;
+    private Long nextCursor;
+    private boolean hasNext;
+
+    public OrderSummaryResponse() {}
+
+    public OrderSummaryResponse(List<OrderSummary> content, Long nextCursor, boolean hasNext) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.hasNext = hasNext;
+    }
+
+    public List<OrderSummary> getContent() {
+        return content;
+    }
+    public void setContent(List<OrderSummary> content) {
+        this.content = content;
+    }
+
+    public Long getNextCursor() {
+        return nextCursor;
+    }
+    public void setNextCursor(Long nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+    public void setHasNext(boolean hasNext) {
+        this.hasNext = hasNext;
+    }
+}
@@ -0,0 +1,92 @@
+package com.CSC492.store.dto;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Counts for the HomeScreen filter UI
+// every facet applies all the current filters except its own,
+// so the category counts show what picking another category would return
+public class ProductFacets {
+    // category name -> number of products, highest count first
+    private Map<String, Long> categories = new LinkedHashMap<>();
+    private long inStock;
+    private long outOfStock;
+    private List<PriceBucket> priceHistogram = new ArrayList<>();
+
+    public Map<String, Long> getCategories() {
+        return categories;
+    }
+    public void setCategories(Map<String, Long> categories) {
+        this.categories = categories;
+    }
+
+    // store the category counts ordered by count, highest first
+    public void setCategoriesByCount(Map<String, Long> counts) {
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(counts.entrySet());
+        entries.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+        categories = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> entry : entries) {
+            categories.put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    public long getInStock() {
+        return inStock;
+    }
+    public void setInStock(long inStock) {
+        this.inStock = inStock;
+    }
+
+    public long getOutOfStock() {
+        return outOfStock;
+    }
+    public void setOutOfStock(long outOfStock) {
+        this.outOfStock = outOfStock;
+    }
+
+    public List<PriceBucket> getPriceHistogram() {
+        return priceHistogram;
+    }
+    public void setPriceHistogram(List<PriceBucket> priceHistogram) {
+        this.priceHistogram = priceHistogram;
+    }
+
+    // products with from <= price < to, the last bucket also includes its upper bound
+    public static class PriceBucket {
+        private BigDecimal from;
+        private BigDecimal to;
+        private long count;
+
+        public PriceBucket() {}
+
+        public PriceBucket(BigDecimal from, BigDecimal to, long count) {
+            this.from = from;
+            this.to = to;
+            this.count = count;
+        }
+
+        public BigDecimal getFrom() {
+            return from;
+        }
+        public void setFrom(BigDecimal from) {
+            this.from = from;
+        }
+
+        public BigDecimal getTo() {
+            return to;
+        }
+        public void setTo(BigDecimal to) {
+            this.to = to;
+        }
+
+        public long getCount() {
+            return count;
+        }
+        public void setCount(long count) {
+            this.count = count;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.CSC492.store.dto;
+
+import com.CSC492.store.model.Product;
+
+import java.util.List;
+
+// One page of the cursor based product listing
+// nextCursor is passed back to get the following page, it is null on the last page
+public class ProductScrollResponse {
+    private List<Product> content;
+    private String nextCursor;
+    private boolean hasNext;
+
+    public ProductScrollResponse() {}
+
+    public ProductScrollResponse(List<Product> content, String nextCursor, boolean hasNext) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.hasNext = hasNext;
+    }
+
+    public List<Product> getContent() {
+        return content;
+    }
+    public void setContent(List<Product> content) {
+        this.content = content;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+    public void setHasNext(boolean hasNext) {
+        this.hasNext = hasNext;
+    }
+}
@@ -0,0 +1,8 @@
+package com.CSC492.store.event;
+
+// Marker for the events that go through the outbox (DomainEventOutbox)
+// published with ApplicationEventPublisher inside the transaction of the change,
+// stored with it and handled on background threads after the commit
+// implementations are written as JSON, so they need a @JsonCreator constructor
+public interface DomainEvent {
+}
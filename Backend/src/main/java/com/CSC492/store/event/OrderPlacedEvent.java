@@ -0,0 +1,47 @@
+package com.CSC492.store.event;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+// Published after an order was created
+// carries the ids and quantities of the ordered products so listeners do not need to load the order again
+// productIds[i] and quantities[i] belong to the same order item
+// placedAt is the creation time in epoch millis, handlers may run a while later
+public class OrderPlacedEvent implements DomainEvent {
+    private final Long orderId;
+    private final Long userId;
+    private final long[] productIds;
+    private final int[] quantities;
+    private final long placedAt;
+
+    @JsonCreator
+    public OrderPlacedEvent(@JsonProperty("orderId") Long orderId, @JsonProperty("userId") Long userId,
+                            @JsonProperty("productIds") long[] productIds, @JsonProperty("quantities") int[] quantities,
+                            @JsonProperty("placedAt") long placedAt) {
+        this.orderId = orderId;
+        this.userId = userId;
+        this.productIds = productIds;
+        this.quantities = quantities;
+        this.placedAt = placedAt;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public long[] getProductIds() {
+        return productIds;
+    }
+
+    public int[] getQuantities() {
+        return quantities;
+    }
+
+    public long getPlacedAt() {
+        return placedAt;
+    }
+}
@@ -0,0 +1,18 @@
+package com.CSC492.store.event;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+// Published after a product was created, updated or deleted
+public class ProductChangedEvent implements DomainEvent {
+    private final Long productId;
+
+    @JsonCreator
+    public ProductChangedEvent(@JsonProperty("productId") Long productId) {
+        this.productId = productId;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+}
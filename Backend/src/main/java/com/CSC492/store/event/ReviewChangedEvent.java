@@ -0,0 +1,18 @@
+package com.CSC492.store.event;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+// Published when a review was added to or deleted from a product
+public class ReviewChangedEvent implements DomainEvent {
+    private final Long productId;
+
+    @JsonCreator
+    public ReviewChangedEvent(@JsonProperty("productId") Long productId) {
+        this.productId = productId;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+}
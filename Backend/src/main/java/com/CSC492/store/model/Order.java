@@ -7,21 +7,32 @@ import java.util.List;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
 
+// the indexes serve the admin order list (OrderSummaryRepositoryImpl): a status with an optional period,
+// one customer's orders, and a period alone; id is last so the newest-first keyset stays inside the index
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_status_created", columnList = "status, created_at, id"),
+        @Index(name = "idx_orders_user_id", columnList = "user_id, id"),
+        @Index(name = "idx_orders_created", columnList = "created_at, id")
+})
 public class Order {
 
     public enum Status { PENDING, PROCESSING, COMPLETED, CANCELLED }
 
+    // ids are taken from the id_generators table 50 at a time (see IdGeneratorMigration),
+    // unlike IDENTITY this lets Hibernate batch the inserts of an order and its items
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "orders_ids")
+    @TableGenerator(name = "orders_ids", table = "id_generators", pkColumnName = "entity", valueColumnName = "next_val",
+            pkColumnValue = "orders", allocationSize = 50)
     private Long id;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    // lazy, the queries that return orders say what they need with an entity graph (see OrderRepository)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
-    @OneToMany( cascade = CascadeType.ALL, mappedBy = "order", orphanRemoval = true, fetch = FetchType.EAGER)
+    @OneToMany( cascade = CascadeType.ALL, mappedBy = "order", orphanRemoval = true, fetch = FetchType.LAZY)
     @JsonManagedReference
     private List<OrderItem> orderItems;
 
@@ -0,0 +1,113 @@
+package com.CSC492.store.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// A domain event waiting to be handled, written in the same transaction as the change it describes
+// the row is deleted once every handler of its type succeeded, so the table only holds pending
+// and failed events, deliveredTo lists the handlers that are done with it; an event that failed store.outbox.max-attempts times stays for inspection
+// a failed event waits until nextAttemptAt before it is read again, so a broken handler is not retried on every poll
+@Entity
+@Table(name = "outbox_events")
+public class OutboxEvent {
+
+    // ids are taken from the id_generators table 50 at a time (see IdGeneratorMigration) like the other
+    // tables, unlike IDENTITY this lets Hibernate batch the events of a checkout into one insert
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "outbox_events_ids")
+    @TableGenerator(name = "outbox_events_ids", table = "id_generators", pkColumnName = "entity", valueColumnName = "next_val",
+            pkColumnValue = "outbox_events", allocationSize = 50)
+    private Long id;
+
+    // simple class name of the event
+    @Column(name = "event_type", nullable = false, length = 100)
+    private String eventType;
+
+    // the event as JSON
+    @Lob
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    private LocalDateTime createdAt;
+
+    private int attempts;
+
+    @Column(length = 500)
+    private String lastError;
+
+    // the event is not dispatched before this time, null for an event that never failed
+    private LocalDateTime nextAttemptAt;
+
+    // comma separated names of the handlers that already handled the event
+    @Column(length = 500)
+    private String deliveredTo;
+
+    public OutboxEvent() {}
+
+    public OutboxEvent(String eventType, String payload, LocalDateTime createdAt) {
+        this.eventType = eventType;
+        this.payload = payload;
+        this.createdAt = createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public boolean isDeliveredTo(String handler) {
+        if (deliveredTo == null) {
+            return false;
+        }
+        for (String name : deliveredTo.split(",")) {
+            if (name.equals(handler)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void markDeliveredTo(String handler) {
+        if (isDeliveredTo(handler)) {
+            return;
+        }
+        if (deliveredTo == null || deliveredTo.isEmpty()) {
+            deliveredTo = handler;
+        } else {
+            deliveredTo = deliveredTo + "," + handler;
+        }
+    }
+}
@@ -1,10 +1,12 @@
 package com.CSC492.store.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "products")
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+@Table(name = "products", indexes = @Index(name = "idx_products_view_count", columnList = "view_count"))
 public class Product {
 
     @Id
@@ -26,6 +28,11 @@ public class Product {
     @Column(nullable = false)
     private Integer stock = 0;
 
+    // detail page views, only written by ProductViewService with UPDATE ... view_count = view_count + ?
+    // so saving a product from the admin form never overwrites it
+    @Column(name = "view_count", nullable = false, insertable = false, updatable = false, columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    private long viewCount;
+
     // Constructors
     public Product() {}
 
@@ -94,4 +101,8 @@ public class Product {
     public void setStock(Integer stock) {
         this.stock = stock;
     }
-}
\ No newline at end of file
+
+    public long getViewCount() {
+        return viewCount;
+    }
+}
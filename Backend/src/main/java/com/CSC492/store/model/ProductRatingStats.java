@@ -0,0 +1,103 @@
+package com.CSC492.store.model;
+
+import jakarta.persistence.*;
+
+// Review totals for one product, kept up to date when reviews are added or deleted
+// so the average rating can be read without loading the reviews
+@Entity
+@Table(name = "product_rating_stats")
+public class ProductRatingStats {
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(name = "review_count", nullable = false)
+    private long reviewCount;
+
+    @Column(name = "rating_sum", nullable = false)
+    private long ratingSum;
+
+    // number of reviews per star rating
+    @Column(name = "one_star", nullable = false)
+    private long oneStar;
+
+    @Column(name = "two_star", nullable = false)
+    private long twoStar;
+
+    @Column(name = "three_star", nullable = false)
+    private long threeStar;
+
+    @Column(name = "four_star", nullable = false)
+    private long fourStar;
+
+    @Column(name = "five_star", nullable = false)
+    private long fiveStar;
+
+    public ProductRatingStats() {}
+
+    public ProductRatingStats(Long productId) {
+        this.productId = productId;
+    }
+
+    // average rating, 0 when there are no reviews
+    public double getAverage() {
+        if (reviewCount == 0) {
+            return 0.0;
+        }
+        return (double) ratingSum / reviewCount;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public long getReviewCount() {
+        return reviewCount;
+    }
+    public void setReviewCount(long reviewCount) {
+        this.reviewCount = reviewCount;
+    }
+
+    public long getRatingSum() {
+        return ratingSum;
+    }
+    public void setRatingSum(long ratingSum) {
+        this.ratingSum = ratingSum;
+    }
+
+    public long getOneStar() {
+        return oneStar;
+    }
+    public void setOneStar(long oneStar) {
+        this.oneStar = oneStar;
+    }
+
+    public long getTwoStar() {
+        return twoStar;
+    }
+    public void setTwoStar(long twoStar) {
+        this.twoStar = twoStar;
+    }
+
+    public long getThreeStar() {
+        return threeStar;
+    }
+    public void setThreeStar(long threeStar) {
+        this.threeStar = threeStar;
+    }
+
+    public long getFourStar() {
+        return fourStar;
+    }
+    public void setFourStar(long fourStar) {
+        this.fourStar = fourStar;
+    }
+
+    public long getFiveStar() {
+        return fiveStar;
+    }
+    public void setFiveStar(long fiveStar) {
+        this.fiveStar = fiveStar;
+    }
+}
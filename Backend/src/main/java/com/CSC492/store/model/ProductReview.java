@@ -11,7 +11,9 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 public class ProductReview {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "product_reviews_ids")
+    @TableGenerator(name = "product_reviews_ids", table = "id_generators", pkColumnName = "entity", valueColumnName = "next_val",
+            pkColumnValue = "product_reviews", allocationSize = 50)
     private Long id;
 
     private int rating;
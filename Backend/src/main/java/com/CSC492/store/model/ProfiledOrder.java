@@ -0,0 +1,33 @@
+package com.CSC492.store.model;
+
+import jakarta.persistence.*;
+
+// An order whose items were added to its customer's purchase profile
+// the outbox can deliver an order twice and orders of one customer can arrive in any id order,
+// so UserProfileService remembers every counted order instead of the highest id
+@Entity
+@Table(name = "profiled_orders", indexes = @Index(name = "idx_profiled_orders_user_id", columnList = "user_id"))
+public class ProfiledOrder {
+
+    @Id
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    public ProfiledOrder() {}
+
+    public ProfiledOrder(Long orderId, Long userId) {
+        this.orderId = orderId;
+        this.userId = userId;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+}
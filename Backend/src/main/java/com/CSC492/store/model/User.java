@@ -1,8 +1,10 @@
 package com.CSC492.store.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 
 @Entity
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 @Table(name = "users") // Adds Table named "users" to MySQL
 public class User {
 
@@ -0,0 +1,68 @@
+package com.CSC492.store.model;
+
+import com.CSC492.store.util.LongSetCodec;
+import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+// What a customer has bought, kept up to date when orders are created
+// used by the personal recommendations instead of loading the whole order history
+@Entity
+@Table(name = "user_purchase_profiles")
+public class UserPurchaseProfile {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    // category name -> number of items bought in that category
+    // loaded for up to 100 profiles per query when a page of profiles is read
+    @ElementCollection(fetch = FetchType.EAGER)
+    @BatchSize(size = 100)
+    @CollectionTable(name = "user_category_counts", joinColumns = @JoinColumn(name = "user_id"))
+    @MapKeyColumn(name = "category", length = 100)
+    @Column(name = "purchase_count", nullable = false)
+    private Map<String, Integer> categoryCounts = new HashMap<>();
+
+    // ids of every product bought, encoded with LongSetCodec
+    @Lob
+    @Column(name = "purchased_products", columnDefinition = "MEDIUMBLOB")
+    private byte[] purchasedProducts;
+
+    private LocalDateTime updatedAt;
+
+    public UserPurchaseProfile() {}
+
+    public UserPurchaseProfile(Long userId) {
+        this.userId = userId;
+    }
+
+    @PrePersist
+    @PreUpdate
+    private void prePersistOrUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Map<String, Integer> getCategoryCounts() {
+        return categoryCounts;
+    }
+
+    // sorted ids of the purchased products
+    public long[] getPurchasedProductIds() {
+        return LongSetCodec.decode(purchasedProducts);
+    }
+    public void setPurchasedProductIds(long[] ids) {
+        this.purchasedProducts = LongSetCodec.encode(ids);
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+}
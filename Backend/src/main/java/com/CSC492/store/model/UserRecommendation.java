@@ -0,0 +1,51 @@
+package com.CSC492.store.model;
+
+import com.CSC492.store.util.LongSetCodec;
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// Precomputed personal recommendations of one customer, written by the recommendation batch job
+@Entity
+@Table(name = "user_recommendations")
+public class UserRecommendation {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    // recommended product ids, best first, encoded with LongSetCodec.encodeList
+    @Lob
+    @Column(name = "product_ids", columnDefinition = "BLOB")
+    private byte[] productIds;
+
+    // true when every candidate product is in the list, so any number of recommendations can be served from it
+    private boolean complete;
+
+    private LocalDateTime computedAt;
+
+    public UserRecommendation() {}
+
+    public UserRecommendation(Long userId, long[] productIds, boolean complete, LocalDateTime computedAt) {
+        this.userId = userId;
+        this.productIds = LongSetCodec.encodeList(productIds);
+        this.complete = complete;
+        this.computedAt = computedAt;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public long[] getProductIds() {
+        return LongSetCodec.decodeList(productIds);
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public LocalDateTime getComputedAt() {
+        return computedAt;
+    }
+}
@@ -7,7 +7,9 @@ import jakarta.persistence.*;
 public class Wishlist {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "wishlist_ids")
+    @TableGenerator(name = "wishlist_ids", table = "id_generators", pkColumnName = "entity", valueColumnName = "next_val",
+            pkColumnValue = "wishlist", allocationSize = 50)
     private Long id;
 
     @ManyToOne
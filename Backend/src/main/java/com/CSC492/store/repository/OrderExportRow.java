@@ -0,0 +1,30 @@
+package com.CSC492.store.repository;
+
+import com.CSC492.store.model.Order;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Projection with one order line and the columns of its order, read by the order export
+// an order without items has one row with the item columns null
+public interface OrderExportRow {
+    Long getOrderId();
+
+    LocalDateTime getCreatedAt();
+
+    Order.Status getStatus();
+
+    Long getUserId();
+
+    String getCustomerEmail();
+
+    BigDecimal getTotalPrice();
+
+    Long getProductId();
+
+    String getProductName();
+
+    Integer getQuantity();
+
+    BigDecimal getPrice();
+}
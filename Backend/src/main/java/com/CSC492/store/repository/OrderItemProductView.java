@@ -0,0 +1,10 @@
+package com.CSC492.store.repository;
+
+// Projection with only the ids of an order item, its order and its product
+public interface OrderItemProductView {
+    Long getId();
+
+    Long getOrderId();
+
+    Long getProductId();
+}
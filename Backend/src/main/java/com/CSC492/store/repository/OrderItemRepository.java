@@ -1,9 +1,21 @@
 package com.CSC492.store.repository;
 
 import com.CSC492.store.model.OrderItem;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
-}
\ No newline at end of file
+
+    // order items of orders up to maxOrderId in (order id, item id) order, starting after the given item
+    // used to walk all the orders one page at a time without OFFSET
+    @Query("SELECT oi.id AS id, oi.order.id AS orderId, oi.product.id AS productId FROM OrderItem oi "
+            + "WHERE oi.order.id <= :maxOrderId "
+            + "AND (oi.order.id > :afterOrderId OR (oi.order.id = :afterOrderId AND oi.id > :afterItemId)) "
+            + "ORDER BY oi.order.id, oi.id")
+    List<OrderItemProductView> findProductsAfter(Long afterOrderId, Long afterItemId, Long maxOrderId, Pageable pageable);
+}
@@ -2,14 +2,66 @@ package com.CSC492.store.repository;
 
 import com.CSC492.store.model.Order;
 import com.CSC492.store.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, OrderSummaryRepository {
+    // the associations of an order are lazy, each method loads what its caller reads
+    // in the same query (joins), so the number of statements does not grow with the orders
+
+    // orders with customer, items and products, what the order endpoints return
+    @EntityGraph(attributePaths = {"user", "orderItems", "orderItems.product"})
     List<Order> findByUser(User user);
 
+    @EntityGraph(attributePaths = {"user", "orderItems", "orderItems.product"})
+    @Query("SELECT o FROM Order o")
+    List<Order> findAllWithItems();
+
+    @EntityGraph(attributePaths = {"user", "orderItems", "orderItems.product"})
+    Optional<Order> findWithItemsById(Long id);
+
+    // orders of a batch of order events, for the purchase profiles, in id order
+    @EntityGraph(attributePaths = {"user", "orderItems", "orderItems.product"})
+    List<Order> findByIdInOrderByIdAsc(Collection<Long> ids);
+
+    // items and products only, used to rebuild a purchase profile
+    @EntityGraph(attributePaths = {"orderItems", "orderItems.product"})
     List<Order> findByUserId(Long userId);
+
+    // ids of every customer with at least one order, one page at a time
+    @Query("SELECT DISTINCT o.user.id FROM Order o ORDER BY o.user.id")
+    Slice<Long> findCustomerIds(Pageable pageable);
+
+    // highest order id, null when there are no orders
+    @Query("SELECT MAX(o.id) FROM Order o")
+    Long findMaxId();
+
+    // every order line of the period for the export, in order id then item id order, read row by row
+    // rows are projections and not entities, so nothing piles up in the persistence context
+    // must be called inside a transaction and the stream closed before the connection runs another query
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT o.id AS orderId, o.createdAt AS createdAt, o.status AS status, u.id AS userId, u.email AS customerEmail, "
+            + "o.totalPrice AS totalPrice, p.id AS productId, p.name AS productName, oi.quantity AS quantity, oi.price AS price "
+            + "FROM Order o JOIN o.user u LEFT JOIN o.orderItems oi LEFT JOIN oi.product p "
+            + "WHERE (:from IS NULL OR o.createdAt >= :from) "
+            + "AND (:to IS NULL OR o.createdAt < :to) "
+            + "ORDER BY o.id, oi.id")
+    Stream<OrderExportRow> streamExportRows(LocalDateTime from, LocalDateTime to);
 }
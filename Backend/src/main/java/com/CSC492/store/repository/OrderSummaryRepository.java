@@ -0,0 +1,17 @@
+package com.CSC492.store.repository;
+
+import com.CSC492.store.dto.OrderSummary;
+import com.CSC492.store.model.Order;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.time.LocalDateTime;
+
+// Admin order list query, implemented in OrderSummaryRepositoryImpl
+public interface OrderSummaryRepository {
+
+    // newest first, one row per order with its number of lines
+    // every filter is optional (null), beforeId is the keyset cursor: the page starts below that id
+    Slice<OrderSummary> findSummaries(Order.Status status, Long userId, LocalDateTime from, LocalDateTime to, Long beforeId, Pageable pageable);
+}
@@ -0,0 +1,80 @@
+package com.CSC492.store.repository;
+
+import com.CSC492.store.dto.OrderSummary;
+import com.CSC492.store.model.Order;
+import com.CSC492.store.model.OrderItem;
+import com.CSC492.store.model.User;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// The admin order list built with the criteria API
+// only the filters that were given end up in the WHERE clause, so MySQL sees a plain
+// range or equality on each column and can use the indexes declared on Order
+// (status + created_at, user_id, created_at), where the "(:x IS NULL OR ...)" form
+// of a fixed query hides the filters from the optimizer
+// without a filter the primary key gives the newest-first order and the keyset directly
+// one row more than the page is read to know if there is a next page
+public class OrderSummaryRepositoryImpl implements OrderSummaryRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Slice<OrderSummary> findSummaries(Order.Status status, Long userId, LocalDateTime from, LocalDateTime to, Long beforeId, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<OrderSummary> query = cb.createQuery(OrderSummary.class);
+        Root<Order> order = query.from(Order.class);
+        Join<Order, User> user = order.join("user");
+
+        // number of lines of the order
+        Subquery<Long> itemCount = query.subquery(Long.class);
+        Root<OrderItem> item = itemCount.from(OrderItem.class);
+        itemCount.select(cb.count(item)).where(cb.equal(item.get("order"), order));
+
+        query.select(cb.construct(OrderSummary.class, order.get("id"), user.get("id"), user.get("name"), user.get("email"),
+                order.get("totalPrice"), order.get("status"), order.get("createdAt"), itemCount));
+
+        List<Predicate> filters = new ArrayList<>();
+        if (status != null) {
+            filters.add(cb.equal(order.get("status"), status));
+        }
+        if (userId != null) {
+            filters.add(cb.equal(user.get("id"), userId));
+        }
+        if (from != null) {
+            filters.add(cb.greaterThanOrEqualTo(order.get("createdAt"), from));
+        }
+        if (to != null) {
+            filters.add(cb.lessThan(order.get("createdAt"), to));
+        }
+        if (beforeId != null) {
+            filters.add(cb.lessThan(order.get("id"), beforeId));
+        }
+        query.where(filters.toArray(new Predicate[0]));
+        query.orderBy(cb.desc(order.get("id")));
+
+        int size = pageable.getPageSize();
+        List<OrderSummary> rows = new ArrayList<>(entityManager.createQuery(query)
+                .setMaxResults(size + 1)
+                .getResultList());
+        boolean hasNext = rows.size() > size;
+        if (hasNext) {
+            rows.remove(size);
+        }
+        return new SliceImpl<>(rows, pageable, hasNext);
+    }
+}
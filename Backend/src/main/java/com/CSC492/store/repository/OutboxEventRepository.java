@@ -0,0 +1,24 @@
+package com.CSC492.store.repository;
+
+import com.CSC492.store.model.OutboxEvent;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // oldest events that can still be retried and whose retry delay is over
+    @Query("SELECT e FROM OutboxEvent e WHERE e.attempts < :maxAttempts "
+            + "AND (e.nextAttemptAt IS NULL OR e.nextAttemptAt <= :now) ORDER BY e.id")
+    List<OutboxEvent> findDue(int maxAttempts, LocalDateTime now, Pageable pageable);
+
+    long countByAttemptsLessThan(int maxAttempts);
+
+    long countByAttemptsGreaterThanEqual(int maxAttempts);
+}
@@ -0,0 +1,15 @@
+package com.CSC492.store.repository;
+
+import com.CSC492.store.dto.ProductFacets;
+import com.CSC492.store.model.Product;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+
+// Aggregate queries for the product facet counts, implemented in ProductFacetRepositoryImpl
+public interface ProductFacetRepository {
+
+    // search is the already resolved name filter (LIKE or id list), may be null
+    ProductFacets findFacets(Specification<Product> search, String category, BigDecimal minPrice, BigDecimal maxPrice, Boolean inStock, int buckets);
+}
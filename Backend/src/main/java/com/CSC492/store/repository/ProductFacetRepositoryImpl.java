@@ -0,0 +1,123 @@
+package com.CSC492.store.repository;
+
+import com.CSC492.store.dto.ProductFacets;
+import com.CSC492.store.model.Product;
+import com.CSC492.store.util.PriceHistogram;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Facet counts computed by MySQL with grouped aggregate queries, no Product rows are loaded
+// 1. count per (category, in stock) with the search and price filters
+//    gives the category counts and the stock counts
+// 2. lowest and highest price with the search, category and stock filters
+// 3. one row with a conditional count per price bucket
+public class ProductFacetRepositoryImpl implements ProductFacetRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public ProductFacets findFacets(Specification<Product> search, String category, BigDecimal minPrice, BigDecimal maxPrice, Boolean inStock, int buckets) {
+        ProductFacets facets = new ProductFacets();
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+
+        // query 1, grouped by category and stock
+        CriteriaQuery<Tuple> grouped = cb.createTupleQuery();
+        Root<Product> root = grouped.from(Product.class);
+        Expression<Integer> stocked = cb.<Integer>selectCase().when(cb.gt(root.get("stock"), 0), 1).otherwise(0);
+        grouped.multiselect(root.get("category"), stocked, cb.count(root));
+        Specification<Product> priceSpec = Specification.allOf(search, ProductSpecifications.priceAtLeast(minPrice), ProductSpecifications.priceAtMost(maxPrice));
+        where(grouped, priceSpec.toPredicate(root, grouped, cb));
+        grouped.groupBy(root.get("category"), stocked);
+
+        // categories are filtered case insensitive, so merge groups that only differ by case
+        Map<String, Long> counts = new HashMap<>();
+        Map<String, String> displayNames = new HashMap<>();
+        for (Tuple row : entityManager.createQuery(grouped).getResultList()) {
+            String rowCategory = row.get(0, String.class);
+            boolean rowInStock = ((Number) row.get(1)).intValue() == 1;
+            long count = ((Number) row.get(2)).longValue();
+
+            if (rowCategory != null && (inStock == null || rowInStock == inStock)) {
+                String name = displayNames.computeIfAbsent(rowCategory.toLowerCase(), k -> rowCategory);
+                counts.merge(name, count, Long::sum);
+            }
+            if (category == null || category.isEmpty() || category.equalsIgnoreCase(rowCategory)) {
+                if (rowInStock) {
+                    facets.setInStock(facets.getInStock() + count);
+                } else {
+                    facets.setOutOfStock(facets.getOutOfStock() + count);
+                }
+            }
+        }
+        facets.setCategoriesByCount(counts);
+
+        // query 2, price range for the histogram
+        Specification<Product> histogramSpec = Specification.allOf(search, ProductSpecifications.hasCategory(category), ProductSpecifications.inStock(inStock));
+        CriteriaQuery<Tuple> range = cb.createTupleQuery();
+        Root<Product> rangeRoot = range.from(Product.class);
+        Path<BigDecimal> rangePrice = rangeRoot.get("price");
+        range.multiselect(cb.min(rangePrice), cb.max(rangePrice));
+        where(range, histogramSpec.toPredicate(rangeRoot, range, cb));
+        Tuple bounds = entityManager.createQuery(range).getSingleResult();
+        BigDecimal lowest = bounds.get(0, BigDecimal.class);
+        BigDecimal highest = bounds.get(1, BigDecimal.class);
+
+        // nothing with a price matched, no histogram
+        if (lowest == null || highest == null) {
+            return facets;
+        }
+
+        // query 3, one conditional count per bucket in a single row
+        PriceHistogram histogram = new PriceHistogram(PriceHistogram.toCents(lowest), PriceHistogram.toCents(highest), buckets);
+        CriteriaQuery<Tuple> bucketQuery = cb.createTupleQuery();
+        Root<Product> bucketRoot = bucketQuery.from(Product.class);
+        Path<BigDecimal> price = bucketRoot.get("price");
+        List<Selection<?>> selections = new ArrayList<>();
+        for (int b = 0; b < histogram.getBucketCount(); b++) {
+            Predicate inBucket;
+            if (b == histogram.getBucketCount() - 1) {
+                inBucket = cb.greaterThanOrEqualTo(price, histogram.from(b));
+            } else {
+                inBucket = cb.and(cb.greaterThanOrEqualTo(price, histogram.from(b)), cb.lessThan(price, histogram.to(b)));
+            }
+            selections.add(cb.sum(cb.<Integer>selectCase().when(inBucket, 1).otherwise(0)));
+        }
+        bucketQuery.multiselect(selections);
+        where(bucketQuery, Specification.allOf(histogramSpec, (r, q, c) -> c.isNotNull(r.get("price"))).toPredicate(bucketRoot, bucketQuery, cb));
+        Tuple bucketRow = entityManager.createQuery(bucketQuery).getSingleResult();
+        for (int b = 0; b < histogram.getBucketCount(); b++) {
+            Number count = (Number) bucketRow.get(b);
+            long value;
+            if (count != null) {
+                value = count.longValue();
+            } else {
+                value = 0;
+            }
+            facets.getPriceHistogram().add(new ProductFacets.PriceBucket(histogram.from(b), histogram.to(b), value));
+        }
+        return facets;
+    }
+
+    private static void where(CriteriaQuery<?> query, Predicate predicate) {
+        if (predicate != null) {
+            query.where(predicate);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.CSC492.store.repository;
+
+// Projection with only the id and name of a product
+public interface ProductNameView {
+    Long getId();
+
+    String getName();
+}
@@ -0,0 +1,62 @@
+package com.CSC492.store.repository;
+
+import com.CSC492.store.model.ProductRatingStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+// The add and remove queries change the counters in one statement inside the database,
+// so two reviews saved at the same time cannot overwrite each other's counts
+// (rating = 1) is 1 or 0 in MySQL, which picks the star column to change
+@Repository
+public interface ProductRatingStatsRepository extends JpaRepository<ProductRatingStats, Long> {
+
+    @Modifying
+    @Query(value = "INSERT INTO product_rating_stats (product_id, review_count, rating_sum, one_star, two_star, three_star, four_star, five_star) "
+            + "VALUES (:productId, 1, :rating, (:rating = 1), (:rating = 2), (:rating = 3), (:rating = 4), (:rating = 5)) "
+            + "ON DUPLICATE KEY UPDATE review_count = review_count + 1, rating_sum = rating_sum + :rating, "
+            + "one_star = one_star + (:rating = 1), two_star = two_star + (:rating = 2), three_star = three_star + (:rating = 3), "
+            + "four_star = four_star + (:rating = 4), five_star = five_star + (:rating = 5)", nativeQuery = true)
+    void addRating(Long productId, int rating);
+
+    @Modifying
+    @Query(value = "UPDATE product_rating_stats SET review_count = review_count - 1, rating_sum = rating_sum - :rating, "
+            + "one_star = one_star - (:rating = 1), two_star = two_star - (:rating = 2), three_star = three_star - (:rating = 3), "
+            + "four_star = four_star - (:rating = 4), five_star = five_star - (:rating = 5) "
+            + "WHERE product_id = :productId AND review_count > 0", nativeQuery = true)
+    void removeRating(Long productId, int rating);
+
+    @Modifying
+    @Query(value = "DELETE FROM product_rating_stats WHERE product_id = :productId", nativeQuery = true)
+    void deleteStats(Long productId);
+
+    @Modifying
+    @Query(value = "DELETE FROM product_rating_stats", nativeQuery = true)
+    void deleteAllStats();
+
+    // recompute the row of one product from its reviews in a single statement
+    // the select locks the product's reviews, a review saved at the same time waits for it or is counted by it,
+    // so the result cannot be overwritten with older totals
+    @Modifying
+    @Query(value = "INSERT INTO product_rating_stats (product_id, review_count, rating_sum, one_star, two_star, three_star, four_star, five_star) "
+            + "SELECT * FROM (SELECT product_id, COUNT(*) AS c, SUM(rating) AS s, SUM(rating = 1) AS s1, SUM(rating = 2) AS s2, "
+            + "SUM(rating = 3) AS s3, SUM(rating = 4) AS s4, SUM(rating = 5) AS s5 "
+            + "FROM product_reviews WHERE product_id = :productId GROUP BY product_id) t "
+            + "ON DUPLICATE KEY UPDATE review_count = t.c, rating_sum = t.s, one_star = t.s1, two_star = t.s2, "
+            + "three_star = t.s3, four_star = t.s4, five_star = t.s5", nativeQuery = true)
+    int recomputeStats(Long productId);
+
+    // delete the row of a product only if it has no reviews anymore
+    @Modifying
+    @Query(value = "DELETE FROM product_rating_stats WHERE product_id = :productId "
+            + "AND NOT EXISTS (SELECT 1 FROM product_reviews r WHERE r.product_id = :productId)", nativeQuery = true)
+    int deleteStatsWithoutReviews(Long productId);
+
+    // recompute every row from the reviews table in a single statement
+    @Modifying
+    @Query(value = "INSERT INTO product_rating_stats (product_id, review_count, rating_sum, one_star, two_star, three_star, four_star, five_star) "
+            + "SELECT product_id, COUNT(*), SUM(rating), SUM(rating = 1), SUM(rating = 2), SUM(rating = 3), SUM(rating = 4), SUM(rating = 5) "
+            + "FROM product_reviews WHERE product_id IS NOT NULL GROUP BY product_id", nativeQuery = true)
+    int insertAllFromReviews();
+}
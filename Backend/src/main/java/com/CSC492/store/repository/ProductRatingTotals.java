@@ -0,0 +1,20 @@
+package com.CSC492.store.repository;
+
+// Projection with the review totals of one product, computed by a grouped query on the reviews
+public interface ProductRatingTotals {
+    Long getProductId();
+
+    Long getReviewCount();
+
+    Long getRatingSum();
+
+    Long getOneStar();
+
+    Long getTwoStar();
+
+    Long getThreeStar();
+
+    Long getFourStar();
+
+    Long getFiveStar();
+}
@@ -4,11 +4,22 @@ import com.CSC492.store.model.Product;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product>, ProductFacetRepository {
     List<Product> findByCategoryIgnoreCase(String category);
+
+    // only the id and name of every product, used to build the search index
+    @Query("SELECT p.id AS id, p.name AS name FROM Product p")
+    List<ProductNameView> findAllNames();
+
+    // take quantity units in one statement if that many are left, returns 0 when there are not enough
+    @Modifying
+    @Query("UPDATE Product p SET p.stock = p.stock - :quantity WHERE p.id = :productId AND p.stock >= :quantity")
+    int decrementStock(Long productId, int quantity);
 }
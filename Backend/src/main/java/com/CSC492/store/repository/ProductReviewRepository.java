@@ -2,12 +2,42 @@ package com.CSC492.store.repository;
 
 import com.CSC492.store.model.ProductReview;
 import com.CSC492.store.model.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
+// The totals queries group the reviews in MySQL and return one small row per product,
+// no review entity, comment, product or user is loaded
 @Repository
 public interface ProductReviewRepository extends JpaRepository<ProductReview, Long> {
     List<ProductReview> findByProduct(Product product);
-}
\ No newline at end of file
+
+    // select list of the totals queries, one ProductRatingTotals row per product
+    String TOTALS_SELECT = "SELECT r.product.id AS productId, COUNT(r) AS reviewCount, SUM(r.rating) AS ratingSum, "
+            + "SUM(CASE WHEN r.rating = 1 THEN 1 ELSE 0 END) AS oneStar, SUM(CASE WHEN r.rating = 2 THEN 1 ELSE 0 END) AS twoStar, "
+            + "SUM(CASE WHEN r.rating = 3 THEN 1 ELSE 0 END) AS threeStar, SUM(CASE WHEN r.rating = 4 THEN 1 ELSE 0 END) AS fourStar, "
+            + "SUM(CASE WHEN r.rating = 5 THEN 1 ELSE 0 END) AS fiveStar ";
+
+    // review totals of the given products, products without reviews are not returned
+    @Query(TOTALS_SELECT
+            + "FROM ProductReview r WHERE r.product.id IN :productIds GROUP BY r.product.id")
+    List<ProductRatingTotals> findRatingTotals(Collection<Long> productIds);
+
+    // review totals of every reviewed product, read row by row
+    // the MySQL driver only streams with fetch size Integer.MIN_VALUE, otherwise it buffers the whole result
+    // must be called inside a transaction and the stream closed before the connection runs another query
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(TOTALS_SELECT
+            + "FROM ProductReview r WHERE r.product IS NOT NULL GROUP BY r.product.id")
+    Stream<ProductRatingTotals> streamAllRatingTotals();
+}
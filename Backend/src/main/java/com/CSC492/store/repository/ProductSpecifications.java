@@ -0,0 +1,155 @@
+package com.CSC492.store.repository;
+
+import com.CSC492.store.model.Product;
+import com.CSC492.store.util.ProductCursor;
+import com.CSC492.store.util.ProductSearchIndex;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+// Building blocks for the product listing query
+// each method returns a predicate that the database evaluates, so filtering
+// happens in MySQL instead of loading every product into memory
+// a null or empty argument returns null, which Specification.allOf() skips
+public class ProductSpecifications {
+
+    // largest id list from the search index sent as an IN list
+    static final int MAX_SEARCH_IDS = 1000;
+
+    private ProductSpecifications() {}
+
+    // category filter, case insensitive
+    public static Specification<Product> hasCategory(String category) {
+        if (category == null || category.isEmpty()) {
+            return null;
+        }
+        String lowered = category.toLowerCase();
+        return (root, query, cb) -> cb.equal(cb.lower(root.get("category")), lowered);
+    }
+
+    // price must be greater than or equal to minPrice
+    public static Specification<Product> priceAtLeast(BigDecimal minPrice) {
+        if (minPrice == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("price"), minPrice);
+    }
+
+    // price must be less than or equal to maxPrice
+    public static Specification<Product> priceAtMost(BigDecimal maxPrice) {
+        if (maxPrice == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("price"), maxPrice);
+    }
+
+    // true keeps products with stock > 0, false keeps products that are out of stock
+    public static Specification<Product> inStock(Boolean inStock) {
+        if (inStock == null) {
+            return null;
+        }
+        if (inStock) {
+            return (root, query, cb) -> cb.greaterThan(root.get("stock"), 0);
+        }
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("stock"), 0);
+    }
+
+    // name contains the keyword, case insensitive
+    // covers both the exact name matches and the partial word matches
+    public static Specification<Product> nameContains(String search) {
+        if (search == null || search.isEmpty()) {
+            return null;
+        }
+        String pattern = "%" + escapeLike(search.toLowerCase()) + "%";
+        return (root, query, cb) -> cb.like(cb.lower(root.get("name")), pattern, '\\');
+    }
+
+    // name contains the keyword once both are normalized like the search index does:
+    // lowercase, and every run of characters that are not letters or digits turned into one space
+    // so "usb-c" finds "USB C Cable" here too, the index and this fallback return the same products
+    public static Specification<Product> normalizedNameContains(String search) {
+        if (search == null || search.isEmpty()) {
+            return null;
+        }
+        String keyword = ProductSearchIndex.normalize(search).trim();
+        if (keyword.isEmpty()) {
+            // only punctuation, the index finds nothing for it either
+            return (root, query, cb) -> cb.disjunction();
+        }
+        String pattern = "%" + escapeLike(keyword) + "%";
+        return (root, query, cb) -> cb.like(
+                cb.function("REGEXP_REPLACE", String.class, cb.lower(root.get("name")), cb.literal("[^[:alnum:]]+"), cb.literal(" ")),
+                pattern, '\\');
+    }
+
+    // the products found by the search index as an id list
+    // when the index is still loading (ids null) or found more than MAX_SEARCH_IDS products, the IN list
+    // would cost more than the scan, so the same substring search is done with LIKE on the normalized name
+    // only the typo matching of the index has no fallback, a keyword with a typo finds nothing here
+    public static Specification<Product> searchResult(String search, long[] ids) {
+        if (ids != null && ids.length <= MAX_SEARCH_IDS) {
+            return idIn(ids);
+        }
+        return normalizedNameContains(search);
+    }
+
+    // id is one of the given ids, used with the ids found by the search index
+    public static Specification<Product> idIn(long[] ids) {
+        if (ids == null) {
+            return null;
+        }
+        List<Long> values = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            values.add(id);
+        }
+        return (root, query, cb) -> root.get("id").in(values);
+    }
+
+    // seek predicate for cursor pagination, keeps only the products that come after the cursor
+    // in the cursor's sort order, id breaks ties between equal prices
+    // price orders skip products without a price since NULL cannot be compared
+    public static Specification<Product> after(ProductCursor cursor) {
+        if (cursor == null) {
+            return null;
+        }
+        long lastId = cursor.getLastId();
+        BigDecimal lastPrice = cursor.getLastPrice();
+        switch (cursor.getSort()) {
+            case ID_DESC:
+                return (root, query, cb) -> cb.lessThan(root.get("id"), lastId);
+            case PRICE_ASC:
+                return (root, query, cb) -> cb.or(
+                        cb.greaterThan(root.get("price"), lastPrice),
+                        cb.and(cb.equal(root.get("price"), lastPrice), cb.greaterThan(root.get("id"), lastId)));
+            case PRICE_DESC:
+                return (root, query, cb) -> cb.or(
+                        cb.lessThan(root.get("price"), lastPrice),
+                        cb.and(cb.equal(root.get("price"), lastPrice), cb.greaterThan(root.get("id"), lastId)));
+            case POPULAR:
+                long lastViews = cursor.getLastViews();
+                return (root, query, cb) -> cb.or(
+                        cb.lessThan(root.get("viewCount"), lastViews),
+                        cb.and(cb.equal(root.get("viewCount"), lastViews), cb.greaterThan(root.get("id"), lastId)));
+            default:
+                return (root, query, cb) -> cb.greaterThan(root.get("id"), lastId);
+        }
+    }
+
+    // all listing filters combined with AND
+    public static Specification<Product> matching(String category, String search, BigDecimal minPrice, BigDecimal maxPrice, Boolean inStock) {
+        return Specification.allOf(
+                hasCategory(category),
+                nameContains(search),
+                priceAtLeast(minPrice),
+                priceAtMost(maxPrice),
+                inStock(inStock));
+    }
+
+    // escape the LIKE wildcards so a search for "50%" does not match everything
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,18 @@
+package com.CSC492.store.repository;
+
+import com.CSC492.store.model.ProfiledOrder;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ProfiledOrderRepository extends JpaRepository<ProfiledOrder, Long> {
+
+    // marks the order as counted, returns 1 the first time and 0 when it already was
+    // a second transaction marking the same order waits for the first one, so only one of them gets 1
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO profiled_orders (order_id, user_id) VALUES (:orderId, :userId)", nativeQuery = true)
+    int markProfiled(Long orderId, Long userId);
+}
@@ -0,0 +1,26 @@
+package com.CSC492.store.repository;
+
+import com.CSC492.store.model.UserPurchaseProfile;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface UserPurchaseProfileRepository extends JpaRepository<UserPurchaseProfile, Long> {
+
+    // locks the profile row so two orders of the same customer do not overwrite each other's counts
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM UserPurchaseProfile p WHERE p.userId = :userId")
+    Optional<UserPurchaseProfile> findForUpdate(Long userId);
+
+    // profiles changed since the given time, one page at a time
+    Slice<UserPurchaseProfile> findByUpdatedAtAfter(LocalDateTime since, Pageable pageable);
+}
@@ -0,0 +1,19 @@
+package com.CSC492.store.repository;
+
+import com.CSC492.store.model.UserRecommendation;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface UserRecommendationRepository extends JpaRepository<UserRecommendation, Long> {
+
+    // drop the lists a batch run did not rewrite
+    @Modifying
+    @Query("DELETE FROM UserRecommendation r WHERE r.computedAt < :before")
+    int deleteComputedBefore(LocalDateTime before);
+}
@@ -0,0 +1,131 @@
+package com.CSC492.store.service;
+
+import com.CSC492.store.event.OrderPlacedEvent;
+import com.CSC492.store.model.Product;
+import com.CSC492.store.repository.ProductRepository;
+import com.CSC492.store.util.CatalogSnapshot;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Holds the in-memory CatalogSnapshot used to answer product listings without the database
+// turned on with store.catalog.snapshot.enabled=true, otherwise listings go to MySQL
+// readers only read the volatile field, writers build a new snapshot and swap it in
+@Service
+public class CatalogSnapshotService {
+
+    private final ProductRepository productRepository;
+    private final boolean enabled;
+
+    // null until the first load finished
+    private volatile CatalogSnapshot snapshot;
+
+    public CatalogSnapshotService(ProductRepository productRepository, @Value("${store.catalog.snapshot.enabled:false}") boolean enabled) {
+        this.productRepository = productRepository;
+        this.enabled = enabled;
+    }
+
+    // load the whole catalog once at startup
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(DomainEventOutbox.LOADER_ORDER)
+    public void load() {
+        if (enabled) {
+            reload();
+        }
+    }
+
+    // rebuild the snapshot from the database
+    public synchronized void reload() {
+        snapshot = CatalogSnapshot.of(productRepository.findAll());
+    }
+
+    // the current snapshot, or null when the snapshot is disabled or not loaded yet
+    public CatalogSnapshot current() {
+        return snapshot;
+    }
+
+    // the products with these ids in the same order, ids that do not exist are skipped
+    // read from the snapshot when it is loaded, otherwise with one query
+    public List<Product> getProducts(long[] ids) {
+        List<Product> products = new ArrayList<>(ids.length);
+        if (ids.length == 0) {
+            return products;
+        }
+
+        CatalogSnapshot current = snapshot;
+        if (current != null) {
+            for (long id : ids) {
+                Product product = current.get(id);
+                if (product != null) {
+                    products.add(product);
+                }
+            }
+            return products;
+        }
+
+        // one query for all the ids, then put them back in the given order
+        List<Long> idList = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            idList.add(id);
+        }
+        Map<Long, Product> byId = new HashMap<>();
+        for (Product product : productRepository.findAllById(idList)) {
+            byId.put(product.getId(), product);
+        }
+        for (long id : ids) {
+            Product product = byId.get(id);
+            if (product != null) {
+                products.add(product);
+            }
+        }
+        return products;
+    }
+
+    // called after a product was created or updated
+    public synchronized void productSaved(Product product) {
+        if (snapshot != null) {
+            snapshot = snapshot.withProduct(product);
+        }
+    }
+
+    // orders took stock, read the new stock of their products in one query, called by the outbox
+    // the whole batch is applied as one new snapshot, so the columns are copied once and not per product
+    public void onOrdersPlaced(List<OrderPlacedEvent> events) {
+        if (snapshot == null) {
+            return;
+        }
+        Set<Long> ids = new HashSet<>();
+        for (OrderPlacedEvent event : events) {
+            for (long id : event.getProductIds()) {
+                ids.add(id);
+            }
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+        // read under the same lock as productSaved, a copy read before the lock could be older
+        // than one an updateProduct put in meanwhile and would overwrite it
+        synchronized (this) {
+            if (snapshot != null) {
+                snapshot = snapshot.withProducts(productRepository.findAllById(ids));
+            }
+        }
+    }
+
+    // called after a product was deleted
+    public synchronized void productDeleted(Long productId) {
+        if (snapshot != null) {
+            snapshot = snapshot.withoutProduct(productId);
+        }
+    }
+}
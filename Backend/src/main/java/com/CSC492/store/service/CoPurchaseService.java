@@ -0,0 +1,128 @@
+package com.CSC492.store.service;
+
+import com.CSC492.store.event.OrderPlacedEvent;
+import com.CSC492.store.event.ProductChangedEvent;
+import com.CSC492.store.model.Product;
+import com.CSC492.store.repository.OrderItemProductView;
+import com.CSC492.store.repository.OrderItemRepository;
+import com.CSC492.store.repository.OrderRepository;
+import com.CSC492.store.repository.ProductRepository;
+import com.CSC492.store.util.CoPurchaseIndex;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// "Customers who bought this also bought", served from the in-memory CoPurchaseIndex
+// the index is built once at startup from the order items and then updated by every new order
+@Service
+public class CoPurchaseService {
+
+    // order items read per query while loading
+    private static final int PAGE_SIZE = 5000;
+
+    private final OrderItemRepository orderItemRepository;
+    private final OrderRepository orderRepository;
+    private final ProductRepository productRepository;
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final CoPurchaseIndex index;
+    // sorted ids of the orders load() counted, their events are skipped
+    // the ids and not MAX(id): an order with a lower id can commit after the load read the table
+    private volatile long[] loadedOrderIds = new long[0];
+
+    public CoPurchaseService(OrderItemRepository orderItemRepository,
+                             OrderRepository orderRepository,
+                             ProductRepository productRepository,
+                             CatalogSnapshotService catalogSnapshotService,
+                             @Value("${store.related.neighbors:20}") int neighbors,
+                             @Value("${store.related.max-basket:100}") int maxBasket) {
+        this.orderItemRepository = orderItemRepository;
+        this.orderRepository = orderRepository;
+        this.productRepository = productRepository;
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.index = new CoPurchaseIndex(neighbors, maxBasket);
+    }
+
+    // read every existing order once, page by page, and count its products
+    // only orders up to the highest id at the start are read, every other order arrives through onOrdersPlaced
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(DomainEventOutbox.LOADER_ORDER)
+    public void load() {
+        Long maxOrderId = orderRepository.findMaxId();
+        if (maxOrderId == null) {
+            return;
+        }
+        long afterOrderId = 0;
+        long afterItemId = 0;
+        // products of the order being read, an order can continue on the next page
+        List<Long> basket = new ArrayList<>();
+        long basketOrderId = -1;
+        // the rows come in order id order, so the ids are collected already sorted
+        long[] orderIds = new long[1024];
+        int orderCount = 0;
+        List<OrderItemProductView> rows;
+        do {
+            rows = orderItemRepository.findProductsAfter(afterOrderId, afterItemId, maxOrderId, PageRequest.of(0, PAGE_SIZE));
+            for (OrderItemProductView row : rows) {
+                if (row.getOrderId() != basketOrderId) {
+                    addBasket(basket);
+                    basket.clear();
+                    basketOrderId = row.getOrderId();
+                    if (orderCount == orderIds.length) {
+                        orderIds = Arrays.copyOf(orderIds, orderCount * 2);
+                    }
+                    orderIds[orderCount++] = basketOrderId;
+                }
+                basket.add(row.getProductId());
+                afterOrderId = row.getOrderId();
+                afterItemId = row.getId();
+            }
+        } while (rows.size() == PAGE_SIZE);
+        addBasket(basket);
+        loadedOrderIds = Arrays.copyOf(orderIds, orderCount);
+    }
+
+    // count new orders, called by the outbox once their transactions committed
+    // events still in the outbox from before the start are skipped when load() read their order
+    public void onOrdersPlaced(List<OrderPlacedEvent> events) {
+        long[] loaded = loadedOrderIds;
+        for (OrderPlacedEvent event : events) {
+            if (event.getOrderId() != null && Arrays.binarySearch(loaded, event.getOrderId()) >= 0) {
+                continue;
+            }
+            index.addOrder(event.getProductIds());
+        }
+    }
+
+    // a deleted product must not be recommended anymore
+    public void onProductsChanged(List<ProductChangedEvent> events) {
+        for (ProductChangedEvent event : events) {
+            if (event.getProductId() != null && !productRepository.existsById(event.getProductId())) {
+                index.removeProduct(event.getProductId());
+            }
+        }
+    }
+
+    // up to n products most often bought together with the product, best first
+    public List<Product> getRelatedProducts(Long productId, int n) {
+        return catalogSnapshotService.getProducts(index.related(productId, n));
+    }
+
+    private void addBasket(List<Long> basket) {
+        if (basket.size() < 2) {
+            return;
+        }
+        long[] productIds = new long[basket.size()];
+        for (int i = 0; i < productIds.length; i++) {
+            productIds[i] = basket.get(i);
+        }
+        index.addOrder(productIds);
+    }
+}
@@ -0,0 +1,377 @@
+package com.CSC492.store.service;
+
+import com.CSC492.store.event.DomainEvent;
+import com.CSC492.store.model.OutboxEvent;
+import com.CSC492.store.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+// Transactional outbox for the domain events (order placed, review changed, product changed)
+// a published DomainEvent is stored as a row in the transaction that publishes it, so it is kept
+// exactly when the change is, and survives a restart until it was handled
+// after the commit (or every store.outbox.poll-ms) the dispatcher reads the oldest events in batches,
+// gives each handler all the events of its type in the batch at once, and runs the handlers on
+// virtual threads, at most store.outbox.max-concurrency at a time
+// the next batch is only read when the handlers of the previous one finished, so a slow handler makes
+// the events wait in the table instead of piling up in memory, and checkout never waits for handlers
+// the handlers that succeeded are written on the event, so a failed event is only retried for the
+// handlers that failed; a crash between a handler and that write still repeats it, handlers must
+// accept an event twice (at least once delivery)
+// a failed event is retried after store.outbox.retry-delay-ms, doubled on every further failure, and
+// left as failed after store.outbox.max-attempts; the events behind it are not held back meanwhile
+@Service
+public class DomainEventOutbox {
+
+    // order of the ApplicationReadyEvent listeners that load data the handlers update,
+    // they all run before start() so no event is handled against a half loaded service
+    public static final int LOADER_ORDER = 0;
+
+    private final OutboxEventRepository repository;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long retryDelayMs;
+    private final boolean dispatchEnabled;
+
+    // simple class name -> event class and its handlers, filled at startup by DomainEventHandlers
+    private final Map<String, Class<?>> types = new ConcurrentHashMap<>();
+    private final Map<String, List<Subscription>> handlers = new ConcurrentHashMap<>();
+
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("outbox-", 0).factory());
+    private final Semaphore permits;
+    // only one dispatch loop at a time, so batches are handled in order
+    private final AtomicBoolean dispatching = new AtomicBoolean();
+    // set by wake(), makes a running dispatch look again before it stops
+    private final AtomicBoolean wakeRequested = new AtomicBoolean();
+    private volatile boolean ready;
+
+    private final LongAdder handled = new LongAdder();
+    private volatile Instant lastDispatch;
+
+    public DomainEventOutbox(OutboxEventRepository repository, ObjectMapper objectMapper,
+                             @Value("${store.outbox.batch-size:200}") int batchSize,
+                             @Value("${store.outbox.max-concurrency:8}") int maxConcurrency,
+                             @Value("${store.outbox.max-attempts:5}") int maxAttempts,
+                             @Value("${store.outbox.retry-delay-ms:5000}") long retryDelayMs,
+                             @Value("${store.outbox.dispatch-enabled:true}") boolean dispatchEnabled) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryDelayMs = retryDelayMs;
+        this.dispatchEnabled = dispatchEnabled;
+        this.permits = new Semaphore(maxConcurrency);
+    }
+
+    // register a handler, it gets the events of one batch in the order they were published
+    // the name is stored with the events it handled, it must be unique per type, stay the same
+    // across restarts and not contain a comma
+    @SuppressWarnings("unchecked")
+    public <T> void subscribe(Class<T> type, String name, Consumer<List<T>> handler) {
+        if (name.indexOf(',') >= 0) {
+            throw new IllegalArgumentException("Handler name cannot contain a comma: " + name);
+        }
+        types.put(type.getSimpleName(), type);
+        handlers.computeIfAbsent(type.getSimpleName(), key -> new CopyOnWriteArrayList<>())
+                .add(new Subscription(name, events -> handler.accept((List<T>) (List<?>) events)));
+    }
+
+    // store a published event, runs in the publisher's thread and transaction
+    @EventListener
+    public void record(DomainEvent event) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Event cannot be stored: " + event.getClass().getSimpleName(), e);
+        }
+        repository.save(new OutboxEvent(event.getClass().getSimpleName(), payload, LocalDateTime.now()));
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    wake();
+                }
+            });
+        } else {
+            // no transaction, the row is already saved
+            wake();
+        }
+    }
+
+    // events are handled once the application started, the services have loaded their data by then
+    // with store.outbox.dispatch-enabled=false the events are only stored, e.g. for the tests
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void start() {
+        if (!dispatchEnabled) {
+            return;
+        }
+        ready = true;
+        wake();
+    }
+
+    // start a dispatch on a virtual thread without waiting for it
+    public void wake() {
+        wakeRequested.set(true);
+        if (ready && !dispatching.get()) {
+            try {
+                executor.execute(this::dispatchPending);
+            } catch (RejectedExecutionException e) {
+                // shutting down, the events are dispatched after the next start
+            }
+        }
+    }
+
+    // picks up events left by a restart or a failed batch, and any event a wake-up missed
+    @Scheduled(fixedDelayString = "${store.outbox.poll-ms:1000}")
+    public void poll() {
+        wake();
+    }
+
+    // handle pending events batch after batch until the table is empty or a batch failed
+    private void dispatchPending() {
+        while (ready && dispatching.compareAndSet(false, true)) {
+            try {
+                wakeRequested.set(false);
+                boolean more = true;
+                while (more && ready) {
+                    List<OutboxEvent> rows = repository.findDue(maxAttempts, LocalDateTime.now(), PageRequest.of(0, batchSize));
+                    more = dispatch(rows) && rows.size() == batchSize;
+                }
+                lastDispatch = Instant.now();
+            } finally {
+                dispatching.set(false);
+            }
+            // an event committed while this dispatch was finishing
+            if (!wakeRequested.get()) {
+                return;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        // pending events stay in the table for the next start
+        ready = false;
+        executor.shutdown();
+    }
+
+    // numbers for monitoring the pipeline
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("pending", repository.countByAttemptsLessThan(maxAttempts));
+        status.put("failed", repository.countByAttemptsGreaterThanEqual(maxAttempts));
+        status.put("handled", handled.sum());
+        if (lastDispatch != null) {
+            status.put("lastDispatch", lastDispatch.toString());
+        } else {
+            status.put("lastDispatch", null);
+        }
+        return status;
+    }
+
+    // one batch, returns false when a handler failed or the dispatcher was stopped
+    // each handler only gets the events it did not handle yet, so a retry does not run the handlers
+    // that already succeeded again
+    private boolean dispatch(List<OutboxEvent> rows) {
+        if (rows.isEmpty()) {
+            return false;
+        }
+
+        // decode and group by type, keeping the publishing order
+        Map<String, List<Object>> events = new LinkedHashMap<>();
+        Map<String, List<OutboxEvent>> rowsByType = new LinkedHashMap<>();
+        List<OutboxEvent> done = new ArrayList<>();
+        List<OutboxEvent> broken = new ArrayList<>();
+        for (OutboxEvent row : rows) {
+            Class<?> type = types.get(row.getEventType());
+            if (type == null || !handlers.containsKey(row.getEventType())) {
+                // nobody handles this type
+                done.add(row);
+                continue;
+            }
+            try {
+                events.computeIfAbsent(row.getEventType(), name -> new ArrayList<>()).add(objectMapper.readValue(row.getPayload(), type));
+                rowsByType.computeIfAbsent(row.getEventType(), name -> new ArrayList<>()).add(row);
+            } catch (JsonProcessingException e) {
+                // retrying will not help
+                row.setAttempts(maxAttempts);
+                row.setLastError(truncate("Unreadable event: " + e.getOriginalMessage()));
+                broken.add(row);
+            }
+        }
+
+        // one task per handler and type, the permits bound the tasks running at once
+        List<Delivery> deliveries = new ArrayList<>();
+        boolean interrupted = false;
+        for (Map.Entry<String, List<OutboxEvent>> entry : rowsByType.entrySet()) {
+            List<Object> typeEvents = events.get(entry.getKey());
+            for (Subscription subscription : handlers.get(entry.getKey())) {
+                List<OutboxEvent> pendingRows = new ArrayList<>();
+                List<Object> batch = new ArrayList<>();
+                for (int i = 0; i < entry.getValue().size(); i++) {
+                    if (!entry.getValue().get(i).isDeliveredTo(subscription.name)) {
+                        pendingRows.add(entry.getValue().get(i));
+                        batch.add(typeEvents.get(i));
+                    }
+                }
+                if (batch.isEmpty()) {
+                    continue;
+                }
+                try {
+                    permits.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    interrupted = true;
+                    break;
+                }
+                List<Object> handlerEvents = List.copyOf(batch);
+                try {
+                    deliveries.add(new Delivery(subscription.name, pendingRows, executor.submit(() -> {
+                        try {
+                            subscription.handler.accept(handlerEvents);
+                        } finally {
+                            permits.release();
+                        }
+                    })));
+                } catch (RejectedExecutionException e) {
+                    // executor shut down
+                    permits.release();
+                    interrupted = true;
+                    break;
+                }
+            }
+            if (interrupted) {
+                break;
+            }
+        }
+
+        // wait for the batch and remember which handler got which event
+        Map<OutboxEvent, String> errors = new HashMap<>();
+        for (Delivery delivery : deliveries) {
+            String error = null;
+            try {
+                delivery.task.get();
+            } catch (ExecutionException e) {
+                error = String.valueOf(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                error = "Dispatch interrupted";
+            }
+            for (OutboxEvent row : delivery.rows) {
+                if (error == null) {
+                    row.markDeliveredTo(delivery.handler);
+                } else {
+                    errors.put(row, delivery.handler + ": " + error);
+                }
+            }
+        }
+
+        // remove the events every handler got, count a failure for the others
+        boolean failed = false;
+        for (Map.Entry<String, List<OutboxEvent>> entry : rowsByType.entrySet()) {
+            for (OutboxEvent row : entry.getValue()) {
+                boolean delivered = true;
+                for (Subscription subscription : handlers.get(entry.getKey())) {
+                    if (!row.isDeliveredTo(subscription.name)) {
+                        delivered = false;
+                        break;
+                    }
+                }
+                if (delivered) {
+                    done.add(row);
+                    handled.increment();
+                } else {
+                    failed = true;
+                    row.setAttempts(row.getAttempts() + 1);
+                    row.setLastError(truncate(errors.getOrDefault(row, "Dispatch interrupted")));
+                    row.setNextAttemptAt(LocalDateTime.now().plusNanos(retryDelay(row.getAttempts()) * 1_000_000L));
+                    broken.add(row);
+                }
+            }
+        }
+
+        if (!done.isEmpty()) {
+            List<Long> ids = new ArrayList<>(done.size());
+            for (OutboxEvent row : done) {
+                ids.add(row.getId());
+            }
+            repository.deleteAllByIdInBatch(ids);
+        }
+        if (!broken.isEmpty()) {
+            repository.saveAll(broken);
+        }
+        return !failed && !interrupted;
+    }
+
+    private static final class Subscription {
+        private final String name;
+        private final Consumer<List<Object>> handler;
+
+        private Subscription(String name, Consumer<List<Object>> handler) {
+            this.name = name;
+            this.handler = handler;
+        }
+    }
+
+    // one handler running on the events it had not handled yet
+    private static final class Delivery {
+        private final String handler;
+        private final List<OutboxEvent> rows;
+        private final Future<?> task;
+
+        private Delivery(String handler, List<OutboxEvent> rows, Future<?> task) {
+            this.handler = handler;
+            this.rows = rows;
+            this.task = task;
+        }
+    }
+
+    // wait before the next try of an event that failed attempts times: the delay, then twice, four times...
+    // capped so the shift cannot overflow
+    private long retryDelay(int attempts) {
+        int doublings = Math.min(Math.max(attempts - 1, 0), 20);
+        return Math.min(retryDelayMs << doublings, TimeUnit.HOURS.toMillis(1));
+    }
+
+    private static String truncate(String message) {
+        if (message != null && message.length() > 500) {
+            return message.substring(0, 500);
+        }
+        return message;
+    }
+}
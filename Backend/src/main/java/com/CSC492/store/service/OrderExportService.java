@@ -0,0 +1,199 @@
+package com.CSC492.store.service;
+
+import com.CSC492.store.repository.OrderExportRow;
+import com.CSC492.store.repository.OrderRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+// Full order history export for the admins, as CSV or NDJSON
+// the order lines are streamed from MySQL row by row and written to the response as they arrive,
+// so memory use does not depend on the number of orders exported
+// the output is flushed every FLUSH_EVERY orders so the download keeps moving
+// the export holds one connection until the last row was sent
+@Service
+public class OrderExportService {
+
+    public enum Format { CSV, NDJSON }
+
+    private static final int FLUSH_EVERY = 1000;
+    private static final String CSV_HEADER = "order_id,created_at,status,user_id,customer_email,total_price,product_id,product_name,quantity,price\n";
+
+    private final OrderRepository orderRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    public OrderExportService(OrderRepository orderRepository, ObjectMapper objectMapper, PlatformTransactionManager transactionManager) {
+        this.orderRepository = orderRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    // write the orders created between from and to (days, both included, null for no limit)
+    // CSV: one line per order line, an order without items has empty item columns
+    // NDJSON: one line per order with its items in an array
+    public void export(Format format, LocalDate from, LocalDate to, OutputStream out) throws IOException {
+        LocalDateTime fromTime = null;
+        if (from != null) {
+            fromTime = from.atStartOfDay();
+        }
+        LocalDateTime toTime = null;
+        if (to != null) {
+            toTime = to.plusDays(1).atStartOfDay();
+        }
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        LocalDateTime start = fromTime;
+        LocalDateTime end = toTime;
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<OrderExportRow> rows = orderRepository.streamExportRows(start, end)) {
+                    if (format == Format.CSV) {
+                        writeCsv(rows.iterator(), writer);
+                    } else {
+                        writeNdjson(rows.iterator(), writer);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            // usually the client went away, rethrow the original error
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    private void writeCsv(Iterator<OrderExportRow> rows, Writer writer) throws IOException {
+        writer.write(CSV_HEADER);
+        Long currentOrder = null;
+        int orders = 0;
+        while (rows.hasNext()) {
+            OrderExportRow row = rows.next();
+            if (!row.getOrderId().equals(currentOrder)) {
+                currentOrder = row.getOrderId();
+                if (++orders % FLUSH_EVERY == 0) {
+                    writer.flush();
+                }
+            }
+            writer.write(row.getOrderId().toString());
+            writer.write(',');
+            writer.write(csv(row.getCreatedAt()));
+            writer.write(',');
+            writer.write(csv(row.getStatus()));
+            writer.write(',');
+            writer.write(csv(row.getUserId()));
+            writer.write(',');
+            writer.write(csv(row.getCustomerEmail()));
+            writer.write(',');
+            writer.write(csv(row.getTotalPrice()));
+            writer.write(',');
+            writer.write(csv(row.getProductId()));
+            writer.write(',');
+            writer.write(csv(row.getProductName()));
+            writer.write(',');
+            writer.write(csv(row.getQuantity()));
+            writer.write(',');
+            writer.write(csv(row.getPrice()));
+            writer.write('\n');
+        }
+    }
+
+    // rows of the same order are next to each other, an order is written when the next one starts
+    private void writeNdjson(Iterator<OrderExportRow> rows, Writer writer) throws IOException {
+        JsonGenerator json = objectMapper.getFactory().createGenerator(writer);
+        // the writer is closed by the response, not by the generator
+        json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        json.setRootValueSeparator(null);
+
+        Long currentOrder = null;
+        int orders = 0;
+        while (rows.hasNext()) {
+            OrderExportRow row = rows.next();
+            if (!row.getOrderId().equals(currentOrder)) {
+                if (currentOrder != null) {
+                    endOrder(json);
+                    if (++orders % FLUSH_EVERY == 0) {
+                        json.flush();
+                    }
+                }
+                currentOrder = row.getOrderId();
+                json.writeStartObject();
+                json.writeNumberField("orderId", row.getOrderId());
+                json.writeStringField("createdAt", text(row.getCreatedAt()));
+                json.writeStringField("status", text(row.getStatus()));
+                json.writeObjectField("userId", row.getUserId());
+                json.writeStringField("customerEmail", row.getCustomerEmail());
+                json.writeObjectField("totalPrice", row.getTotalPrice());
+                json.writeArrayFieldStart("items");
+            }
+            if (row.getProductId() != null) {
+                json.writeStartObject();
+                json.writeNumberField("productId", row.getProductId());
+                json.writeStringField("productName", row.getProductName());
+                json.writeObjectField("quantity", row.getQuantity());
+                json.writeObjectField("price", row.getPrice());
+                json.writeEndObject();
+            }
+        }
+        if (currentOrder != null) {
+            endOrder(json);
+        }
+        json.flush();
+    }
+
+    // close the items array and the order, then end the line
+    private static void endOrder(JsonGenerator json) throws IOException {
+        json.writeEndArray();
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+
+    private static String text(Object value) {
+        if (value == null) {
+            return null;
+        }
+        return value.toString();
+    }
+
+    // empty for null, quoted when the value has a comma, a quote or a line break
+    // text starting like a formula (= + - @ tab or CR) gets a leading ' so spreadsheets show it
+    // as text instead of running it, customer emails and product names come from users
+    private static String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text;
+        if (value instanceof BigDecimal) {
+            text = ((BigDecimal) value).toPlainString();
+        } else if (value instanceof Number) {
+            // a negative number stays a number
+            text = value.toString();
+        } else {
+            text = value.toString();
+            if (!text.isEmpty() && "=+-@\t\r".indexOf(text.charAt(0)) >= 0) {
+                text = "'" + text;
+            }
+        }
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return "\"" + text.replace("\"", "\"\"") + "\"";
+    }
+}
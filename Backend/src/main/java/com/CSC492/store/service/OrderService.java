@@ -1,6 +1,9 @@
 package com.CSC492.store.service;
 
 import com.CSC492.store.dto.CheckoutItemDTO;
+import com.CSC492.store.dto.OrderSummary;
+import com.CSC492.store.dto.OrderSummaryResponse;
+import com.CSC492.store.event.OrderPlacedEvent;
 import com.CSC492.store.model.Order;
 import com.CSC492.store.model.OrderItem;
 import com.CSC492.store.model.Product;
@@ -11,12 +14,19 @@ import com.CSC492.store.repository.ProductRepository;
 
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
 
 @Service
 @Transactional
@@ -25,12 +35,14 @@ public class OrderService {
     private final OrderRepository orderRepository;
     private final OrderItemRepository orderItemRepository;
     private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public OrderService(OrderRepository orderRepository, OrderItemRepository orderItemRepository, ProductRepository productRepository) {
+    public OrderService(OrderRepository orderRepository, OrderItemRepository orderItemRepository, ProductRepository productRepository, ApplicationEventPublisher eventPublisher) {
         this.orderRepository = orderRepository;
         this.orderItemRepository = orderItemRepository;
         this.productRepository = productRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     // order save
@@ -42,11 +54,15 @@ public class OrderService {
             }
         }
         order.calculateTotalPrice();
-        return orderRepository.save(order);
+        Order saved = orderRepository.save(order);
+        // stored in the outbox with the order, the follow-up work runs after the commit
+        eventPublisher.publishEvent(placedEvent(saved));
+        return saved;
     }
 
     // Create order from Stripe checkout success
-    @Transactional
+    // rolls back on the checked exceptions too, so a failed order gives its stock back
+    @Transactional(rollbackOn = Exception.class)
     public Order createOrderFromItems(User user, List<CheckoutItemDTO> items, Order.Status initialStatus) throws Exception {
         if (user == null) {
             throw new Exception("User required");
@@ -55,79 +71,106 @@ public class OrderService {
             throw new Exception("Items required");
         }
 
+        // units asked per product, sorted by id
+        Map<Long, Integer> unitsPerProduct = new TreeMap<>();
+        for (CheckoutItemDTO dto : items) {
+            if (dto.getProductId() == null) {
+                throw new Exception("Product required");
+            }
+            if (dto.getQuantity() <= 0) {
+                throw new Exception("Invalid quantity for product " + dto.getProductId());
+            }
+            unitsPerProduct.merge(dto.getProductId(), dto.getQuantity(), Integer::sum);
+        }
+
+        // reserve the stock with one conditional UPDATE per product, no read-then-write race
+        // and no lock held before the update; the rows are updated in id order so two checkouts
+        // with the same products wait on each other instead of deadlocking
+        // any failure rolls back the units already taken
+        for (Map.Entry<Long, Integer> entry : unitsPerProduct.entrySet()) {
+            if (productRepository.decrementStock(entry.getKey(), entry.getValue()) == 0) {
+                if (productRepository.existsById(entry.getKey())) {
+                    throw new Exception("Not enough stock for product: " + entry.getKey());
+                } else {
+                    throw new Exception("Product not found: " + entry.getKey());
+                }
+            }
+        }
+
+        // every product of the cart in one query, read after the updates so they have the new stock
+        Map<Long, Product> products = new HashMap<>();
+        for (Product p : productRepository.findAllById(unitsPerProduct.keySet())) {
+            products.put(p.getId(), p);
+        }
+
         Order order = new Order();
         order.setUser(user);
         order.setStatus(initialStatus);
         order.setOrderItems(new ArrayList<>());
 
         for (CheckoutItemDTO dto : items) {
-            Optional<Product> optional = productRepository.findById(dto.getProductId());
-
-            Product product;
-            if (optional.isPresent()) {
-                product = optional.get();
-            } else {
-                throw new Exception("Product not found: " + dto.getProductId());
-            }
+            Product product = products.get(dto.getProductId());
             OrderItem oi = new OrderItem();
             oi.setOrder(order);
             oi.setProduct(product);
-
-            int quantity = dto.getQuantity();
-            if (quantity > 0) {
-                oi.setQuantity(quantity);
-            } else {
-                oi.setQuantity(1);
-            }
-
-            BigDecimal finalPrice;
-            if (dto.getPrice() != null) {
-                finalPrice = dto.getPrice();
-            } else {
-                finalPrice = product.getPrice();
-            }
-            
-            oi.setPrice(finalPrice);
+            oi.setQuantity(dto.getQuantity());
+            // the price always comes from the catalog, not from the client
+            oi.setPrice(product.getPrice());
             order.getOrderItems().add(oi);
         }
         order.calculateTotalPrice();
-        return orderRepository.save(order);
+        Order saved = orderRepository.save(order);
+        // profiles, related products, trending and the snapshot stock are updated from the outbox
+        eventPublisher.publishEvent(placedEvent(saved));
+        return saved;
     }
 
     // Get orders for a specific user
     @Transactional
     public List<Order> getOrdersByUser(User user) {
-        List<Order> orders = orderRepository.findByUser(user);
-        for (Order o : orders) {
-            o.getOrderItems().size();
-        }
-        return orders;
+        return orderRepository.findByUser(user);
     }
 
     // Get all orders (admin)
     @Transactional
     public List<Order> getAllOrders() {
-        List<Order> orders = orderRepository.findAll();
-        for (Order o : orders) {
-            o.getOrderItems().size();
+        return orderRepository.findAllWithItems();
+    }
+
+    // One page of order summaries for the admin list, newest first
+    // from and to are days, both included; null means no filter
+    // the next page is asked with before = nextCursor, so deep pages cost the same as the first
+    @Transactional
+    public OrderSummaryResponse getOrderSummaries(Order.Status status, Long userId, LocalDate from, LocalDate to, Long before, int size) {
+        LocalDateTime fromTime = null;
+        if (from != null) {
+            fromTime = from.atStartOfDay();
         }
-        return orders;
+        LocalDateTime toTime = null;
+        if (to != null) {
+            toTime = to.plusDays(1).atStartOfDay();
+        }
+        Slice<OrderSummary> slice = orderRepository.findSummaries(status, userId, fromTime, toTime, before, PageRequest.of(0, size));
+
+        List<OrderSummary> content = slice.getContent();
+        Long nextCursor = null;
+        if (slice.hasNext()) {
+            nextCursor = content.get(content.size() - 1).getId();
+        }
+        return new OrderSummaryResponse(content, nextCursor, slice.hasNext());
     }
 
     // Get order by ID
     @Transactional
     public Optional<Order> getOrderById(Long id) {
-        Optional<Order> opt = orderRepository.findById(id);
-        if (opt.isPresent()) {
-            opt.get().getOrderItems().size();
-        }
-        return opt;
+        return orderRepository.findWithItemsById(id);
     }
 
     // order status
     @Transactional
     public Order updateStatus(Long orderId, Order.Status status) throws Exception {
-        Optional<Order> optional = orderRepository.findById(orderId);
+        // loaded with its items, the updated order is returned to the client
+        Optional<Order> optional = orderRepository.findWithItemsById(orderId);
         Order order;
         if (optional.isPresent()) {
             order = optional.get();
@@ -137,4 +180,27 @@ public class OrderService {
         order.setStatus(status);
         return orderRepository.save(order);
     }
+
+    // event for the handlers that run after the order committed, with the product ids read now
+    private OrderPlacedEvent placedEvent(Order order) {
+        List<OrderItem> items = new ArrayList<>();
+        if (order.getOrderItems() != null) {
+            for (OrderItem item : order.getOrderItems()) {
+                if (item.getProduct() != null && item.getProduct().getId() != null) {
+                    items.add(item);
+                }
+            }
+        }
+        long[] ids = new long[items.size()];
+        int[] quantities = new int[items.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = items.get(i).getProduct().getId();
+            quantities[i] = items.get(i).getQuantity();
+        }
+        Long userId = null;
+        if (order.getUser() != null) {
+            userId = order.getUser().getId();
+        }
+        return new OrderPlacedEvent(order.getId(), userId, ids, quantities, System.currentTimeMillis());
+    }
 }
\ No newline at end of file
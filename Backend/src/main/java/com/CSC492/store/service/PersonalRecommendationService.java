@@ -0,0 +1,239 @@
+package com.CSC492.store.service;
+
+import com.CSC492.store.event.OrderPlacedEvent;
+import com.CSC492.store.model.Product;
+import com.CSC492.store.model.UserPurchaseProfile;
+import com.CSC492.store.model.UserRecommendation;
+import com.CSC492.store.repository.ProductRepository;
+import com.CSC492.store.repository.UserPurchaseProfileRepository;
+import com.CSC492.store.repository.UserRecommendationRepository;
+import com.CSC492.store.util.RecommendationCandidates;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+// Personal recommendations served from lists precomputed by a batch job
+// the job reads the catalog and the ratings once, then ranks every active customer against them,
+// one page of customers at a time with the customers of a page ranked in parallel
+// a request is then one lookup in user_recommendations, customers without a list (new customers,
+// or customers who ordered since the last run) get ProductService.getRecommendationsForUser
+// an order placed while its customer's page is being ranked can leave a list without it until the next run
+@Service
+public class PersonalRecommendationService {
+
+    // customers ranked and saved per page
+    private static final int BATCH_PAGE_SIZE = 500;
+
+    private final UserRecommendationRepository recommendationRepository;
+    private final UserPurchaseProfileRepository profileRepository;
+    private final ProductRepository productRepository;
+    private final ProductRatingService productRatingService;
+    private final ProductService productService;
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final TransactionTemplate transactionTemplate;
+    // products kept per customer
+    private final int size;
+    // customers whose profile did not change for longer are not ranked
+    private final int activeDays;
+
+    public PersonalRecommendationService(UserRecommendationRepository recommendationRepository,
+                                         UserPurchaseProfileRepository profileRepository,
+                                         ProductRepository productRepository,
+                                         ProductRatingService productRatingService,
+                                         ProductService productService,
+                                         CatalogSnapshotService catalogSnapshotService,
+                                         PlatformTransactionManager transactionManager,
+                                         @Value("${store.recommendations.size:50}") int size,
+                                         @Value("${store.recommendations.active-days:365}") int activeDays) {
+        this.recommendationRepository = recommendationRepository;
+        this.profileRepository = profileRepository;
+        this.productRepository = productRepository;
+        this.productRatingService = productRatingService;
+        this.productService = productService;
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.size = size;
+        this.activeDays = activeDays;
+    }
+
+    // top n recommendations of a customer, from the precomputed list when it can answer
+    public List<Product> getRecommendations(Long userId, int n) {
+        if (userId == null) {
+            return productService.getRecommendationsForUser(null, n);
+        }
+        Optional<UserRecommendation> stored = recommendationRepository.findById(userId);
+        if (stored.isPresent()) {
+            long[] ids = stored.get().getProductIds();
+            // a list with fewer products than asked only works if it has every candidate
+            boolean enough = n > 0 && n <= ids.length;
+            if (enough || stored.get().isComplete()) {
+                List<Product> products = catalogSnapshotService.getProducts(ids);
+                // stock may have run out since the batch run
+                List<Product> result = new ArrayList<>();
+                for (Product p : products) {
+                    if (p.getStock() != null && p.getStock() > 0) {
+                        result.add(p);
+                        if (result.size() == n) {
+                            break;
+                        }
+                    }
+                }
+                if (result.size() == ids.length || (n > 0 && result.size() == n)) {
+                    return result;
+                }
+            }
+        }
+        return productService.getRecommendationsForUser(userId, n);
+    }
+
+    // the stored lists miss the products of the new orders, drop them until the next run
+    // called by the outbox once the orders committed
+    public void onOrdersPlaced(List<OrderPlacedEvent> events) {
+        Set<Long> userIds = new HashSet<>();
+        for (OrderPlacedEvent event : events) {
+            if (event.getUserId() != null) {
+                userIds.add(event.getUserId());
+            }
+        }
+        for (Long userId : userIds) {
+            if (recommendationRepository.existsById(userId)) {
+                recommendationRepository.deleteById(userId);
+            }
+        }
+    }
+
+    // Batch job, ranks every customer with a recent profile and saves the lists
+    // runs every night and can be started by an admin
+    // returns the number of lists saved
+    @Scheduled(cron = "${store.recommendations.batch-cron:0 0 4 * * *}")
+    public synchronized int rebuildAll() {
+        LocalDateTime startedAt = LocalDateTime.now();
+
+        // shared by every customer of this run
+        RecommendationCandidates candidates = RecommendationCandidates.of(productRepository.findAll(), productRatingService.averageRatings());
+
+        int saved = 0;
+        int page = 0;
+        Slice<UserPurchaseProfile> profiles;
+        do {
+            profiles = profileRepository.findByUpdatedAtAfter(startedAt.minusDays(activeDays),
+                    PageRequest.of(page++, BATCH_PAGE_SIZE, Sort.by("userId")));
+
+            // rank the page in parallel, the candidates are only read
+            List<UserRecommendation> lists = profiles.getContent().parallelStream()
+                    .filter(profile -> !profile.getCategoryCounts().isEmpty())
+                    .map(profile -> rank(profile, candidates, startedAt))
+                    .filter(recommendation -> recommendation != null)
+                    .toList();
+
+            transactionTemplate.executeWithoutResult(status -> recommendationRepository.saveAll(lists));
+            saved += lists.size();
+        } while (profiles.hasNext());
+
+        // customers not ranked in this run fall back to the on demand computation
+        transactionTemplate.executeWithoutResult(status -> recommendationRepository.deleteComputedBefore(startedAt));
+        return saved;
+    }
+
+    // first start, compute the lists once
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(DomainEventOutbox.LOADER_ORDER)
+    public void rebuildIfEmpty() {
+        if (recommendationRepository.count() == 0 && profileRepository.count() > 0) {
+            rebuildAll();
+        }
+    }
+
+    // Bulk recommendations for a list of customers, written as one JSON line per customer
+    // {"userId":1,"productIds":[5,3,9]}, in the order of userIds
+    // the catalog, the ratings and the top rated fallback are read once for the whole request,
+    // the profiles are read BATCH_PAGE_SIZE customers per query and each batch is ranked in parallel
+    // customers without purchases get the top rated products, like getRecommendationsForUser
+    public void writeBulkRecommendations(List<Long> userIds, int n, OutputStream out) throws IOException {
+        RecommendationCandidates candidates = RecommendationCandidates.of(productRepository.findAll(), productRatingService.averageRatings());
+        long[] topRated = toIds(productService.getTopRatedProducts(n));
+
+        for (int from = 0; from < userIds.size(); from += BATCH_PAGE_SIZE) {
+            List<Long> batch = userIds.subList(from, Math.min(from + BATCH_PAGE_SIZE, userIds.size()));
+            Map<Long, UserPurchaseProfile> profiles = new HashMap<>();
+            for (UserPurchaseProfile profile : profileRepository.findAllById(batch)) {
+                profiles.put(profile.getUserId(), profile);
+            }
+
+            // rank in parallel, the lines keep the order of the batch
+            List<String> lines = batch.parallelStream()
+                    .map(userId -> {
+                        long[] ids = topRated;
+                        UserPurchaseProfile profile = profiles.get(userId);
+                        if (profile != null && !profile.getCategoryCounts().isEmpty()) {
+                            List<Product> top = candidates.recommend(profile.getCategoryCounts(), profile.getPurchasedProductIds(), n);
+                            if (!top.isEmpty()) {
+                                ids = toIds(top);
+                            }
+                        }
+                        return toJsonLine(userId, ids);
+                    })
+                    .toList();
+
+            for (String line : lines) {
+                out.write(line.getBytes(StandardCharsets.UTF_8));
+            }
+            // send every batch as soon as it is ranked
+            out.flush();
+        }
+    }
+
+    private static String toJsonLine(Long userId, long[] productIds) {
+        StringBuilder sb = new StringBuilder(32 + productIds.length * 8);
+        sb.append("{\"userId\":").append(userId).append(",\"productIds\":[");
+        for (int i = 0; i < productIds.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(productIds[i]);
+        }
+        return sb.append("]}\n").toString();
+    }
+
+    private static long[] toIds(List<Product> products) {
+        long[] ids = new long[products.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = products.get(i).getId();
+        }
+        return ids;
+    }
+
+    // null when nothing can be recommended, the customer then gets the top rated products
+    private UserRecommendation rank(UserPurchaseProfile profile, RecommendationCandidates candidates, LocalDateTime computedAt) {
+        List<Product> top = candidates.recommend(profile.getCategoryCounts(), profile.getPurchasedProductIds(), size + 1);
+        if (top.isEmpty()) {
+            return null;
+        }
+        boolean complete = top.size() <= size;
+        if (!complete) {
+            top = top.subList(0, size);
+        }
+        return new UserRecommendation(profile.getUserId(), toIds(top), complete, computedAt);
+    }
+}
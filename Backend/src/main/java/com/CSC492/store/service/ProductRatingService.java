@@ -0,0 +1,219 @@
+package com.CSC492.store.service;
+
+import com.CSC492.store.event.ProductChangedEvent;
+import com.CSC492.store.event.ReviewChangedEvent;
+import com.CSC492.store.model.ProductRatingStats;
+import com.CSC492.store.repository.ProductRatingStatsRepository;
+import com.CSC492.store.repository.ProductRatingTotals;
+import com.CSC492.store.repository.ProductReviewRepository;
+
+import jakarta.transaction.Transactional;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+// Per product rating totals (count, sum and stars), maintained by ProductReviewService
+// in the same transaction as the review, plus a nightly job that checks them against the reviews
+@Service
+public class ProductRatingService {
+
+    private final ProductRatingStatsRepository statsRepository;
+    private final ProductReviewRepository reviewRepository;
+
+    // averageRatings() result, null when a review or product changed since it was read
+    private volatile Map<Long, Double> averages;
+    // bumped by every invalidation, a read that started before it does not store its result
+    private long averagesVersion;
+
+    public ProductRatingService(ProductRatingStatsRepository statsRepository, ProductReviewRepository reviewRepository) {
+        this.statsRepository = statsRepository;
+        this.reviewRepository = reviewRepository;
+    }
+
+    // called inside the transaction that saves the review
+    public void reviewAdded(Long productId, int rating) {
+        statsRepository.addRating(productId, rating);
+    }
+
+    // called inside the transaction that deletes the review
+    public void reviewDeleted(Long productId, int rating) {
+        statsRepository.removeRating(productId, rating);
+    }
+
+    // called inside the transaction that deletes the product, its totals go with it
+    public void productDeleted(Long productId) {
+        statsRepository.deleteStats(productId);
+    }
+
+    // reviews were added or deleted, called by the outbox once they committed
+    public void onReviewsChanged(List<ReviewChangedEvent> events) {
+        invalidateAverages();
+    }
+
+    // a deleted product must leave the averages, called by the outbox
+    public void onProductsChanged(List<ProductChangedEvent> events) {
+        invalidateAverages();
+    }
+
+    // totals of one product, all zero if it has no reviews
+    public ProductRatingStats getStats(Long productId) {
+        return statsRepository.findById(productId).orElse(new ProductRatingStats(productId));
+    }
+
+    // totals of many products, computed from the reviews with one grouped query
+    // every requested id is in the map, all zero if the product has no reviews
+    public Map<Long, ProductRatingStats> getStats(Collection<Long> productIds) {
+        Map<Long, ProductRatingStats> stats = new LinkedHashMap<>();
+        if (productIds.isEmpty()) {
+            return stats;
+        }
+        for (Long productId : productIds) {
+            stats.put(productId, new ProductRatingStats(productId));
+        }
+        for (ProductRatingTotals totals : reviewRepository.findRatingTotals(productIds)) {
+            copyTotals(totals, stats.get(totals.getProductId()));
+        }
+        return stats;
+    }
+
+    // productId -> average rating for every product with at least one review, read only
+    // read from the stats table once and kept until the next review or product change
+    public Map<Long, Double> averageRatings() {
+        Map<Long, Double> cached = averages;
+        if (cached != null) {
+            return cached;
+        }
+        long version;
+        synchronized (this) {
+            version = averagesVersion;
+        }
+        Map<Long, Double> computed = new HashMap<>();
+        for (ProductRatingStats stats : statsRepository.findAll()) {
+            if (stats.getReviewCount() > 0) {
+                computed.put(stats.getProductId(), stats.getAverage());
+            }
+        }
+        computed = Collections.unmodifiableMap(computed);
+        synchronized (this) {
+            if (version == averagesVersion) {
+                averages = computed;
+            }
+        }
+        return computed;
+    }
+
+    // inside a transaction the cache is dropped once it committed, a read before that would cache the old totals
+    private void invalidateAverages() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    clearAverages();
+                }
+            });
+        } else {
+            clearAverages();
+        }
+    }
+
+    private synchronized void clearAverages() {
+        averagesVersion++;
+        averages = null;
+    }
+
+    // Repair job, recomputes all totals from the reviews table
+    // can be started by an admin
+    // returns the number of products with reviews
+    @Transactional
+    public int rebuildAll() {
+        statsRepository.deleteAllStats();
+        int products = statsRepository.insertAllFromReviews();
+        invalidateAverages();
+        return products;
+    }
+
+    // first start with existing reviews, fill the table once
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(DomainEventOutbox.LOADER_ORDER)
+    @Transactional
+    public void rebuildIfEmpty() {
+        if (statsRepository.count() == 0 && reviewRepository.count() > 0) {
+            rebuildAll();
+        }
+    }
+
+    // Drift check, runs every night
+    // compares the maintained totals with the totals grouped from the reviews and fixes only the products that differ
+    // the review totals are streamed one row at a time, so the heap holds the stats table and not the reviews
+    // returns the number of products fixed
+    @Scheduled(cron = "${store.ratings.repair-cron:0 30 3 * * *}")
+    @Transactional
+    public int repairDrift() {
+        Map<Long, ProductRatingStats> current = new HashMap<>();
+        for (ProductRatingStats stats : statsRepository.findAll()) {
+            current.put(stats.getProductId(), stats);
+        }
+
+        // the streamed result must be closed before the fixes are written on the same connection
+        List<ProductRatingTotals> drifted = new ArrayList<>();
+        try (Stream<ProductRatingTotals> totals = reviewRepository.streamAllRatingTotals()) {
+            totals.forEach(row -> {
+                ProductRatingStats stats = current.remove(row.getProductId());
+                if (stats == null || !matches(row, stats)) {
+                    drifted.add(row);
+                }
+            });
+        }
+
+        // the totals above were read without locks, a review saved since then would be lost by copying them,
+        // so every drifted row is recomputed in the database with the reviews locked
+        int fixed = 0;
+        for (ProductRatingTotals row : drifted) {
+            statsRepository.recomputeStats(row.getProductId());
+            fixed++;
+        }
+        // rows left have no reviews anymore, unless one was added since the stream
+        for (ProductRatingStats stats : current.values()) {
+            if (stats.getReviewCount() != 0 || stats.getRatingSum() != 0) {
+                fixed += statsRepository.deleteStatsWithoutReviews(stats.getProductId());
+            }
+        }
+        if (fixed > 0) {
+            invalidateAverages();
+        }
+        return fixed;
+    }
+
+    private static boolean matches(ProductRatingTotals totals, ProductRatingStats stats) {
+        return stats.getReviewCount() == totals.getReviewCount()
+                && stats.getRatingSum() == totals.getRatingSum()
+                && stats.getOneStar() == totals.getOneStar()
+                && stats.getTwoStar() == totals.getTwoStar()
+                && stats.getThreeStar() == totals.getThreeStar()
+                && stats.getFourStar() == totals.getFourStar()
+                && stats.getFiveStar() == totals.getFiveStar();
+    }
+
+    private static void copyTotals(ProductRatingTotals totals, ProductRatingStats stats) {
+        stats.setReviewCount(totals.getReviewCount());
+        stats.setRatingSum(totals.getRatingSum());
+        stats.setOneStar(totals.getOneStar());
+        stats.setTwoStar(totals.getTwoStar());
+        stats.setThreeStar(totals.getThreeStar());
+        stats.setFourStar(totals.getFourStar());
+        stats.setFiveStar(totals.getFiveStar());
+    }
+}
@@ -1,10 +1,14 @@
 package com.CSC492.store.service;
 
+import com.CSC492.store.event.ReviewChangedEvent;
 import com.CSC492.store.model.Product;
 import com.CSC492.store.model.ProductReview;
 import com.CSC492.store.model.User;
 import com.CSC492.store.repository.ProductRepository;
 import com.CSC492.store.repository.ProductReviewRepository;
+
+import jakarta.transaction.Transactional;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -15,10 +19,14 @@ public class ProductReviewService {
 
     private final ProductReviewRepository reviewRepo;
     private final ProductRepository productRepo;
+    private final ProductRatingService ratingService;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public ProductReviewService(ProductReviewRepository reviewRepo, ProductRepository productRepo) {
+    public ProductReviewService(ProductReviewRepository reviewRepo, ProductRepository productRepo, ProductRatingService ratingService, ApplicationEventPublisher eventPublisher) {
         this.reviewRepo = reviewRepo;
         this.productRepo = productRepo;
+        this.ratingService = ratingService;
+        this.eventPublisher = eventPublisher;
     }
 
     public List<ProductReview> getReviews(Long productId) {
@@ -32,6 +40,8 @@ public class ProductReviewService {
         return reviewRepo.findByProduct(product);
     }
 
+    // the rating totals are updated in the same transaction as the review
+    @Transactional
     public ProductReview addReview(Long productId, int rating, String comment, User user) {
         Optional<Product> optional = productRepo.findById(productId);
         Product product;
@@ -41,10 +51,23 @@ public class ProductReviewService {
             throw new RuntimeException("Product not found");
         }
         ProductReview review = new ProductReview(rating, comment, product, user);
-        return reviewRepo.save(review);
+        ProductReview saved = reviewRepo.save(review);
+        ratingService.reviewAdded(product.getId(), rating);
+        eventPublisher.publishEvent(new ReviewChangedEvent(product.getId()));
+        return saved;
     }
 
+    @Transactional
     public void deleteReview(Long reviewId) {
-        reviewRepo.deleteById(reviewId);
+        Optional<ProductReview> optional = reviewRepo.findById(reviewId);
+        if (optional.isEmpty()) {
+            return;
+        }
+        ProductReview review = optional.get();
+        reviewRepo.delete(review);
+        if (review.getProduct() != null) {
+            ratingService.reviewDeleted(review.getProduct().getId(), review.getRating());
+            eventPublisher.publishEvent(new ReviewChangedEvent(review.getProduct().getId()));
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,63 @@
+package com.CSC492.store.service;
+
+import com.CSC492.store.model.Product;
+import com.CSC492.store.repository.ProductNameView;
+import com.CSC492.store.repository.ProductRepository;
+import com.CSC492.store.util.ProductSearchIndex;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Keeps the product name search index in sync with the catalog
+// the index is built once at startup from the product names and then updated by the product write paths
+@Service
+public class ProductSearchService {
+
+    private final ProductRepository productRepository;
+    private final ProductSearchIndex index = new ProductSearchIndex();
+
+    // false until the startup load finished
+    private volatile boolean ready;
+
+    public ProductSearchService(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    // load only the ids and names, not the full products
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(DomainEventOutbox.LOADER_ORDER)
+    public void load() {
+        List<ProductNameView> rows = productRepository.findAllNames();
+        List<Long> ids = new ArrayList<>(rows.size());
+        List<String> names = new ArrayList<>(rows.size());
+        for (ProductNameView row : rows) {
+            ids.add(row.getId());
+            names.add(row.getName());
+        }
+        index.addAll(ids, names);
+        ready = true;
+    }
+
+    // sorted ids of the products matching the keyword, or null while the index is still loading
+    public long[] search(String keyword) {
+        if (!ready) {
+            return null;
+        }
+        return index.search(keyword);
+    }
+
+    // called after a product was created or updated
+    public void productSaved(Product product) {
+        index.put(product.getId(), product.getName());
+    }
+
+    // called after a product was deleted
+    public void productDeleted(Long id) {
+        index.remove(id);
+    }
+}
@@ -1,42 +1,55 @@
 package com.CSC492.store.service;
 
-import com.CSC492.store.model.Order;
-import com.CSC492.store.model.OrderItem;
+import com.CSC492.store.dto.ProductFacets;
+import com.CSC492.store.dto.ProductScrollResponse;
+import com.CSC492.store.event.ProductChangedEvent;
 import com.CSC492.store.model.Product;
-import com.CSC492.store.model.ProductReview;
-import com.CSC492.store.repository.OrderRepository;
+import com.CSC492.store.model.UserPurchaseProfile;
 import com.CSC492.store.repository.ProductRepository;
-import com.CSC492.store.repository.ProductReviewRepository;
+import com.CSC492.store.repository.ProductSpecifications;
+import com.CSC492.store.util.CatalogSnapshot;
 import com.CSC492.store.util.ProductAlgorithms;
+import com.CSC492.store.util.ProductCursor;
+import com.CSC492.store.util.ProductSort;
 
+import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.*;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
 
 @Service
 public class ProductService {
 
     private final ProductRepository productRepository;
-    private final ProductReviewRepository productReviewRepository;
-    private final OrderRepository orderRepository;
+    private final ProductRatingService productRatingService;
+    private final UserProfileService userProfileService;
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final ProductSearchService productSearchService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public ProductService(ProductRepository productRepository, ProductReviewRepository productReviewRepository, OrderRepository orderRepository) {
+    public ProductService(ProductRepository productRepository, ProductRatingService productRatingService, UserProfileService userProfileService, CatalogSnapshotService catalogSnapshotService, ProductSearchService productSearchService, ApplicationEventPublisher eventPublisher) {
         this.productRepository = productRepository;
-        this.productReviewRepository = productReviewRepository;
-        this.orderRepository = orderRepository;
+        this.productRatingService = productRatingService;
+        this.userProfileService = userProfileService;
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.productSearchService = productSearchService;
+        this.eventPublisher = eventPublisher;
     }
 
+    // the change and its ProductChangedEvent are committed together
+    @Transactional
     public Product createProduct(Product product) {
         if (product.getImageUrl() == null) {
             product.setImageUrl("");
@@ -44,7 +57,28 @@ public class ProductService {
         if (product.getCategory() == null) {
             product.setCategory("Uncategorized");
         }
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        afterCommit(() -> {
+            catalogSnapshotService.productSaved(saved);
+            productSearchService.productSaved(saved);
+        });
+        eventPublisher.publishEvent(new ProductChangedEvent(saved.getId()));
+        return saved;
+    }
+
+    // the in-memory snapshot and search index only see a change once it is committed,
+    // a rolled back save or delete (e.g. a product still referenced by orders) leaves them as they were
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
     }
 
     public Optional<Product> getProductById(Long id) {
@@ -55,143 +89,133 @@ public class ProductService {
         return productRepository.findAll();
     }
 
+    @Transactional
     public void deleteProduct(Long id) {
         productRepository.deleteById(id);
+        productRatingService.productDeleted(id);
+        afterCommit(() -> {
+            catalogSnapshotService.productDeleted(id);
+            productSearchService.productDeleted(id);
+        });
+        eventPublisher.publishEvent(new ProductChangedEvent(id));
     }
 
+    @Transactional
     public Product updateProduct(Product product) {
         if (product.getImageUrl() == null) { 
             product.setImageUrl("");
         }
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        afterCommit(() -> {
+            catalogSnapshotService.productSaved(saved);
+            productSearchService.productSaved(saved);
+        });
+        eventPublisher.publishEvent(new ProductChangedEvent(saved.getId()));
+        return saved;
     }
 
     // method to get products with filtering, searching, sorting and pagination
+    // sortBy is id, price, newest or popular (most viewed)
+    // when the in-memory catalog snapshot is loaded the page is answered from it,
+    // otherwise the filters are turned into a Specification and the sort into a Pageable
+    // so MySQL does the filtering, ordering and paging and only one page of rows is loaded
     public Page<Product> getProducts( String category, String search, BigDecimal minPrice, BigDecimal maxPrice, Boolean inStock, int page, int size, String sortBy, String sortDir) {
-        // load all products from the database into a list
-        List<Product> rawList = productRepository.findAll();
-
-        // category filter
-        // if a category was provided, remove the products that do not match it
-        if (category != null && !category.isEmpty()) {
-            for (int i = 0; i < rawList.size(); i++) {
-                Product p = rawList.get(i);
-                if (!p.getCategory().equalsIgnoreCase(category)) {
-                    rawList.remove(i);
-                    i--; // step back since list shrinks
-                }
-            }
-        }
+        ProductSort sort = ProductSort.from(sortBy, sortDir);
+        Pageable pageable = PageRequest.of(page, size, sort.toSort());
 
-        // price range filter
-        // remove products with price lower than minPrice
-        if (minPrice != null) {
-            for (int i = 0; i < rawList.size(); i++) {
-                Product p = rawList.get(i);
-                if (p.getPrice().compareTo(minPrice) < 0) {
-                    rawList.remove(i);
-                    i--;
-                }
+        // resolve the search keyword to product ids with the name index
+        // null means no search, or the index is still loading and the database LIKE is used instead
+        long[] searchIds = null;
+        if (search != null && !search.isEmpty()) {
+            searchIds = productSearchService.search(search);
+            if (searchIds != null && searchIds.length == 0) {
+                return new PageImpl<>(List.of(), pageable, 0);
             }
         }
 
-        // remove products with price higher than maxPrice
-        if (maxPrice != null) {
-            for (int i = 0; i < rawList.size(); i++) {
-                Product p = rawList.get(i);
-                if (p.getPrice().compareTo(maxPrice) > 0) {
-                    rawList.remove(i);
-                    i--;
-                }
-            }
+        // the snapshot has no view counts, the popular order always comes from the database
+        CatalogSnapshot snapshot = catalogSnapshotService.current();
+        if (snapshot != null && sort != ProductSort.POPULAR && (searchIds != null || search == null || search.isEmpty())) {
+            return snapshot.query(category, searchIds, minPrice, maxPrice, inStock, page, size, sort);
         }
 
-        // stock filter
-        if (inStock != null) {
-            // if inStock is true, keep only products that are in stock
-            if (inStock) {
-                for (int i = 0; i < rawList.size(); i++) {
-                    Product p = rawList.get(i);
-                    if (p.getStock() <= 0) {
-                        rawList.remove(i);
-                        i--;
-                    }
-                }
-            }
-            // if inStock is false, keep only products that are out of stock
-            else {
-                for (int i = 0; i < rawList.size(); i++) {
-                    Product p = rawList.get(i);
-                    if (p.getStock() > 0) {
-                        rawList.remove(i);
-                        i--;
-                    }
-                }
-            }
+        Specification<Product> spec = ProductSpecifications.matching(category, null, minPrice, maxPrice, inStock);
+        if (search != null && !search.isEmpty()) {
+            spec = Specification.allOf(spec, ProductSpecifications.searchResult(search, searchIds));
         }
+        return productRepository.findAll(spec, pageable);
+    }
 
-        // Search by using Binary Search, works on list sorted by name
+    // facet counts (categories, stock, price histogram) for the same filters as getProducts
+    // answered from the catalog snapshot when it is loaded, otherwise with aggregate queries
+    public ProductFacets getFacets(String category, String search, BigDecimal minPrice, BigDecimal maxPrice, Boolean inStock, int buckets) {
+        long[] searchIds = null;
         if (search != null && !search.isEmpty()) {
-            // first is to sort products alphabetically before using binary search
-            rawList.sort(Comparator.comparing(Product::getName, String.CASE_INSENSITIVE_ORDER));
-
-            // use binarySearch() method to find matching names
-            List<Product> results = ProductAlgorithms.binarySearch(rawList, search.toLowerCase());
-
-            // if binary search found nothing then use linear search, for backup
-            // helps with partial words
-            if ( results.isEmpty()) {
-                for (Product p : rawList) {
-                    if (p.getName().toLowerCase().contains(search.toLowerCase())) {
-                        results.add(p);
-                    }
-                }
+            searchIds = productSearchService.search(search);
+            if (searchIds != null && searchIds.length == 0) {
+                return new ProductFacets();
             }
-            // replace the rawlist with only the results from the search
-            rawList = results;
         }
 
-        // Sort by using Merge Sort
-        // create a comparator based on what the user selects for the sort field, price or newest
-        Comparator<Product> comparator = null;
-        // Sort by price
-        if (sortBy != null && sortBy.equals("price")) {
-            comparator = Comparator.comparing(Product::getPrice);
+        CatalogSnapshot snapshot = catalogSnapshotService.current();
+        if (snapshot != null && (searchIds != null || search == null || search.isEmpty())) {
+            return snapshot.facets(category, searchIds, minPrice, maxPrice, inStock, buckets);
         }
-        // Sort by newest
-        else if (sortBy != null && sortBy.equals("newest")) {
-            comparator = Comparator.comparing(Product::getId).reversed();
+
+        Specification<Product> searchSpec = null;
+        if (search != null && !search.isEmpty()) {
+            searchSpec = ProductSpecifications.searchResult(search, searchIds);
         }
-        // Default: sort by ID
-        else {
-            comparator = Comparator.comparing(Product::getId);
+        return productRepository.findFacets(searchSpec, category, minPrice, maxPrice, inStock, buckets);
+    }
+
+    // cursor based version of getProducts for infinite scrolling
+    // instead of skipping page * size rows, the query seeks to the sort key stored in the cursor,
+    // so every page costs the same and no total count is computed
+    // one extra row is read to know if there is a next page
+    // throws IllegalArgumentException for an invalid cursor
+    public ProductScrollResponse scrollProducts(String category, String search, BigDecimal minPrice, BigDecimal maxPrice, Boolean inStock, String cursor, int size, String sortBy, String sortDir) {
+        // the cursor keeps the sort order of the first page
+        ProductCursor after = null;
+        ProductSort sort;
+        if (cursor != null && !cursor.isEmpty()) {
+            after = ProductCursor.decode(cursor);
+            sort = after.getSort();
+        } else {
+            sort = ProductSort.from(sortBy, sortDir);
         }
 
-        // If the user requested "desc", reverse the comparator
-        if (sortDir != null && sortDir.equals("desc")) {
-            comparator = comparator.reversed();
+        Specification<Product> spec;
+        if (search != null && !search.isEmpty()) {
+            long[] searchIds = productSearchService.search(search);
+            if (searchIds != null && searchIds.length == 0) {
+                return new ProductScrollResponse(List.of(), null, false);
+            }
+            spec = Specification.allOf(ProductSpecifications.matching(category, null, minPrice, maxPrice, inStock), ProductSpecifications.searchResult(search, searchIds));
+        } else {
+            spec = ProductSpecifications.matching(category, null, minPrice, maxPrice, inStock);
+        }
+        spec = Specification.allOf(spec, ProductSpecifications.after(after));
+        if (sort == ProductSort.PRICE_ASC || sort == ProductSort.PRICE_DESC) {
+            spec = Specification.allOf(spec, (root, query, cb) -> cb.isNotNull(root.get("price")));
         }
 
-        // Sort the filtered list using mergeSort()
-        rawList = ProductAlgorithms.mergeSort(rawList, comparator);
-
-        // pagination
-        // convert list to page
-        // get where the page begins
-        int start = page * size;
-        // get where page ends but can not pass the list size
-        int end = Math.min(start + size, rawList.size());
-
-        List<Product> pageContent;
-        // if the start index is beyond the list size then return an empty list
-        if (start > rawList.size()) {
-            pageContent = List.of();
-        // otherwise, return the sublist for pagination
+        List<Product> rows = productRepository.findBy(spec, q -> q.sortBy(sort.toSort()).limit(size + 1).all());
+
+        // the extra row only tells us there is another page
+        boolean hasNext = rows.size() > size;
+        List<Product> content;
+        if (hasNext) {
+            content = rows.subList(0, size);
         } else {
-            pageContent = rawList.subList(start, end);
+            content = rows;
         }
-        // return the paginated result as a page object
-        return new PageImpl<>(pageContent, PageRequest.of(page, size), rawList.size());
+
+        String nextCursor = null;
+        if (hasNext) {
+            nextCursor = ProductCursor.after(sort, content.get(content.size() - 1)).encode();
+        }
+        return new ProductScrollResponse(content, nextCursor, hasNext);
     }
 
     // get all products of a given category from DB
@@ -203,11 +227,10 @@ public class ProductService {
     // Recommendation Algorithms
 
     // Rating-Based/Popuplarity-Based
-    // first, get all reviews
-    // second, for each product, get the avgerage rating
-    // third, sort products by average rating using Merge Sort descend
-    // then return top n products
-    // Time Complexity: O(n log n)
+    // first, get the rating totals of every reviewed product
+    // second, for each product, look up the avgerage rating once and keep it in a score array
+    // third, select the top n products by average rating descend with a bounded heap over the array positions
+    // Time Complexity: O(n log k), k being the number of products returned
     public List<Product> getTopRatedProducts (int n) {
         // get all products from the database
         List<Product> products = productRepository.findAll();
@@ -215,202 +238,82 @@ public class ProductService {
         if (products.isEmpty()) {
             return List.of();
         }
-        // get all product reviews from databse to calculate average rating for each product
-        List<ProductReview> allReviews = productReviewRepository.findAll();
-
-        // use Map because we can to get product ID and track how many reviews that product has
-        Map<Long, Integer> count = new HashMap<>();
-
-        // this Map is to hold the Sum of all ratings for each product, helps to get the average
-        Map<Long, Integer> sum = new HashMap<>();
-
-        // loop to go through each review
-        for (ProductReview review : allReviews) {
-            // ignore reviews that are missing a product ID
-            if (review.getProduct() == null || review.getProduct().getId() == null) {
-                continue;
+        // get the average rating of every reviewed product from the rating totals
+        // the totals are kept up to date when reviews change, so no reviews are loaded here
+        Map<Long, Double> avgRating = productRatingService.averageRatings();
+
+        // scoring stage, one map lookup per product instead of two per comparison
+        // ratings[i] and ids[i] belong to items[i]
+        Product[] items = products.toArray(new Product[0]);
+        double[] ratings = new double[items.length];
+        long[] ids = new long[items.length];
+        for (int i = 0; i < items.length; i++) {
+            // get average rating or 0 if none
+            ratings[i] = avgRating.getOrDefault(items[i].getId(), 0.0);
+            if (items[i].getId() != null) {
+                ids[i] = items[i].getId();
+            } else {
+                ids[i] = 0L;
             }
-            // get the product ID, which is used for the map key
-            Long productId = review.getProduct().getId();
-
-            // get the rating value
-            int rating = review.getRating();
-
-            // Add rating to the sum for that product
-            // using getORDefault helps start from 0 if the product is not yet in the map
-            sum.put(productId, sum.getOrDefault(productId, 0) + rating);
-
-            // increase the number of reviews counted for that product
-            count.put(productId, count.getOrDefault(productId, 0) + 1);
-        }
-
-        // after getting the sums and counts, get the average rating
-        // use map to store the productId and that product's average rating
-        Map<Long, Double> avgRating = new HashMap<>();
-
-        // loop through all productIds in sum Map to get the averages
-        for (Map.Entry<Long, Integer> entry : sum.entrySet()) {
-            Long productId = entry.getKey(); // gets productId
-            int sumRating = entry.getValue();      // gets rating sum
-            int countRating = count.get(productId); // number of reviews
-            avgRating.put(productId, (double)sumRating / countRating); // get average for that product
         }
 
-        // sort products by average rating
-        // use comparator to sort, 
+        // rank products
         // first higher average rating first(descending)
         // second if the same average rating then by newer product first, higher Id
-        Comparator<Product> ratingDescending = new Comparator<Product>() {
-            @Override
-            public int compare(Product product1, Product product2) {
-
-                // get average rating or 0 if none
-                double rating1 = avgRating.getOrDefault(product1.getId(), 0.0);
-                double rating2 = avgRating.getOrDefault(product2.getId(), 0.0);
-
-                // compare ratings descending
-                int compare = Double.compare(rating2, rating1);
-                if (compare != 0) {
-                    return compare;
-                }
-
-                // If ratings equal, sort by ID descending (newer first)
-                Long id1;
-                if (product1.getId() != null) {
-                    id1 = product1.getId();
-                } else {
-                    id1 = 0L;
-                }
-
-                Long id2;
-                if (product2.getId() != null) {
-                    id2 = product2.getId();
-                } else {
-                    id2 = 0L;
-                }
-
-                return Long.compare(id2, id1);
+        ProductAlgorithms.IndexComparator ratingDescending = (i, j) -> {
+            int compare = Double.compare(ratings[j], ratings[i]);
+            if (compare != 0) {
+                return compare;
             }
+            return Long.compare(ids[j], ids[i]);
         };
 
-        // use MergeSort to sort
-        List<Product> sorted = ProductAlgorithms.mergeSort(products, ratingDescending);
-
-        // return the top n products
-        // if the limit is invalid or too large, return all sorting products
-        if (n <= 0 || n >= sorted.size()) {
-            return sorted;
-        }
-
-        // otherwise return only the top N highest rated products
-        return sorted.subList(0, n);
+        // return the top n products with a bounded heap instead of sorting the whole catalog
+        // if the limit is invalid or too large, every product is returned in order
+        return toProducts(items, ProductAlgorithms.topKIndexes(items.length, n, ratingDescending));
     }
 
     // Personalized Recommendations for a customer
-    // first, looks at the user's past orders and order items
-    // second, count how many times each category appears in their purchases
+    // first, looks at the user's purchase profile, kept up to date when orders are created
+    // second, the profile has how many times each category appears in their purchases
     // third, build a potential list of products, not already purchased by user, and stock > 0
-    // fourth, check the products by higher category check count, higher average rating, newer productId
-    // fifth, sort and return top n products
-    // for the time complexity, it would be O(n log n)
+    // fourth, score each potential product once: category check count, average rating, productId
+    // fifth, select and return top n products by higher category count, higher average rating, newer productId
+    // for the time complexity, it would be O(n log k), k being the number of products returned
     public List<Product> getRecommendationsForUser(Long userId, int n) {
         // if no user id was provided fall back to other recommendations
         if (userId == null) {
             return getTopRatedProducts(n);
         }
 
-        // get all orders for the given user to see what they have purchased
-        List<Order> userOrders = orderRepository.findByUserId(userId);
+        // get the purchase profile of the user with one lookup instead of loading every order
+        Optional<UserPurchaseProfile> profile = userProfileService.findProfile(userId);
 
         // if user has no purchase history, fall back
-        if (userOrders == null || userOrders.isEmpty()) {
+        if (profile.isEmpty() || profile.get().getCategoryCounts().isEmpty()) {
             return getTopRatedProducts(n);
         }
 
-        // get build sets and maps
-        // use Set because it helps avoid duplicates(user may buy the same product)
-        Set<Long> purchasedProductIds = new HashSet<>();
+        // sorted ids of the purchased products, so we do not recommend already purchased products
+        long[] purchasedProductIds = profile.get().getPurchasedProductIds();
 
-        // use Map because helps for counting category in orders
         // uses category name for key and stores value of how many times user bought from that category
-        Map<String, Integer> categoryMap = new HashMap<>();
-
-        // loop throught each order to see and get user purchase behavior
-        for (Order order : userOrders) {
-            if (order.getOrderItems() == null) {
-                continue;
-            }
-            for (OrderItem item : order.getOrderItems()) {
-                Product product = item.getProduct();
-
-                // skip invalid items to avoid null
-                if (product == null || product.getId() == null) {
-                    continue;
-                }
-
-                // track product ids so we do not recommened already purchased products
-                purchasedProductIds.add(product.getId());
-                String category;
-                if (product.getCategory() != null){
-                    category = product.getCategory();
-                } else {
-                    category = "Uncategorized";
-                }
-
-                // count how often the user buys from each category
-                categoryMap.put(category, categoryMap.getOrDefault(category, 0) + 1);
-            }
-        }
-
-        // build average rating map
-        // get all product reviews to calculate average rating for each product
-        List<ProductReview> allReviews = productReviewRepository.findAll();
-
-        // use Map because we can to get product ID and track how many reviews that product has
-        Map<Long, Integer> countMap = new HashMap<>();
-
-        // this Map is to hold the Sum of all ratings for each product, helps to get the average
-        Map<Long, Integer> sumMap = new HashMap<>();
-
-        // loop to go through each review
-        for (ProductReview review : allReviews) {
-            // ignore reviews that are missing a product ID
-            if (review.getProduct() == null || review.getProduct().getId() == null) {
-                continue;
-            }
-
-            // get the product ID, which is used for the map key
-            Long productId = review.getProduct().getId();
-
-            // get the rating value
-            int rating = review.getRating();
-
-            // Add rating to the sum for that product
-            // using getORDefault helps start from 0 if the product is not yet in the map
-            sumMap.put(productId, sumMap.getOrDefault(productId, 0) + rating);
+        Map<String, Integer> categoryMap = profile.get().getCategoryCounts();
 
-            // increase the number of reviews counted for that product
-            countMap.put(productId, countMap.getOrDefault(productId, 0) + 1);
-        }
-
-        // after getting the sums and counts, get the average rating
-        // use map to store the productId and that product's average rating
-        Map<Long, Double> avgRatingMap = new HashMap<>();
-
-        // loop through all productIds in sum Map to get the averages, average rating = sum / count
-        for (Map.Entry<Long, Integer> entry : sumMap.entrySet()) {
-            Long productId = entry.getKey(); // gets productId
-            int sum = entry.getValue();      // gets rating sum
-            int count = countMap.get(productId); // number of reviews
-            avgRatingMap.put(productId, (double)sum / count); // get average for that product
-        }
+        // build average rating map from the rating totals
+        Map<Long, Double> avgRatingMap = productRatingService.averageRatings();
 
         // build list of potential products
         // get all products to filter which ones to consider
         List<Product> allProducts = productRepository.findAll();
 
         // filter by exclude products already purchased and out of stock products
-        List<Product> potentials = new ArrayList<>();
+        // and score the ones that are left, categoryCounts[i], ratings[i] and ids[i] belong to potentials[i]
+        Product[] potentials = new Product[allProducts.size()];
+        int[] categoryCounts = new int[allProducts.size()];
+        double[] ratings = new double[allProducts.size()];
+        long[] ids = new long[allProducts.size()];
+        int count = 0;
         for (Product p : allProducts) {
             // make sure product is valid
             if (p.getId() == null) {
@@ -418,7 +321,7 @@ public class ProductService {
             }
 
             // avoid already purchased products
-            if (purchasedProductIds.contains(p.getId())) {
+            if (Arrays.binarySearch(purchasedProductIds, p.getId()) >= 0) {
                 continue;
             }
 
@@ -427,83 +330,57 @@ public class ProductService {
                 continue;
             }
 
-            // if all checks passed, add to result list
-            potentials.add(p);
+            // Extract category (or default)
+            String category;
+            if (p.getCategory() != null) {
+                category = p.getCategory();
+            } else {
+                category = "Uncategorized";
+            }
+
+            // if all checks passed, add to the potentials with its scores
+            potentials[count] = p;
+            // Category count (how many times user bought from this category)
+            categoryCounts[count] = categoryMap.getOrDefault(category, 0);
+            ratings[count] = avgRatingMap.getOrDefault(p.getId(), 0.0);
+            ids[count] = p.getId();
+            count++;
         }
 
         // if no potentails exit, fall back
-        if (potentials.isEmpty()) {
+        if (count == 0) {
             return getTopRatedProducts(n);
         }
 
-        // sort potential products by category, average rating, and newer productId
-        Comparator<Product> userScore = new Comparator<Product>() {
-            @Override
-            public int compare(Product product1, Product product2) {
-
-                // Extract category (or default)
-                String category1;
-                if (product1.getCategory() != null) {
-                    category1 = product1.getCategory();
-                } else {
-                    category1 = "Uncategorized";
-                }
-
-                String category2;
-                if (product2.getCategory() != null) {
-                    category2 = product2.getCategory();
-                } else {
-                    category2 = "Uncategorized";
-                }
-
-                // Category count (how many times user bought from this category)
-                int cM1 = categoryMap.getOrDefault(category1, 0);
-                int cM2 = categoryMap.getOrDefault(category2, 0);
-
-                // Sort category descending
-                int compare = Integer.compare(cM2, cM1);
-                if (compare != 0) {
-                    return compare;
-                }
-
-                // Sort average rating descending
-                double rating1 = avgRatingMap.getOrDefault(product1.getId(), 0.0);
-                double rating2 = avgRatingMap.getOrDefault(product2.getId(), 0.0);
-
-                compare = Double.compare(rating2, rating1);
-                if (compare != 0) {
-                    return compare;
-                }
-
-                // Sort by newer product ID first
-                Long id1;
-                if (product1.getId() != null) {
-                    id1 = product1.getId();
-                } else {
-                    id1 = 0L;
-                }
-
-                Long id2;
-                if (product2.getId() != null) {
-                    id2 = product2.getId();
-                } else {
-                    id2 = 0L;
-                }
+        // rank potential products by category, average rating, and newer productId
+        ProductAlgorithms.IndexComparator userScore = (i, j) -> {
+            // Sort category descending
+            int compare = Integer.compare(categoryCounts[j], categoryCounts[i]);
+            if (compare != 0) {
+                return compare;
+            }
 
-                return Long.compare(id2, id1);
+            // Sort average rating descending
+            compare = Double.compare(ratings[j], ratings[i]);
+            if (compare != 0) {
+                return compare;
             }
+
+            // Sort by newer product ID first
+            return Long.compare(ids[j], ids[i]);
         };
 
-        // sort potential products using the merge sort
-        List<Product> sortedPotentials = ProductAlgorithms.mergeSort(potentials, userScore);
+        // return the top n potential products using the bounded heap selection
+        // if n is larger than list size or invalid, every potential product is returned in order
+        return toProducts(potentials, ProductAlgorithms.topKIndexes(count, n, userScore));
+    }
 
-        // return top n products
-        // if n is larger than list size or invalid, return all products
-        if (n <= 0 || n >= sortedPotentials.size()) {
-            return sortedPotentials;
+    // the products at the given positions, in that order
+    private static List<Product> toProducts(Product[] items, int[] positions) {
+        List<Product> result = new ArrayList<>(positions.length);
+        for (int position : positions) {
+            result.add(items[position]);
         }
-
-        // return only the n number of top product recommendations
-        return sortedPotentials.subList(0, n);
+        return result;
     }
 }
\ No newline at end of file
@@ -0,0 +1,110 @@
+package com.CSC492.store.service;
+
+import com.CSC492.store.model.Product;
+import com.CSC492.store.repository.ProductRepository;
+import com.CSC492.store.util.ViewCounter;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Product detail page views
+// a view only increments an in-memory counter, the request never waits for the database
+// every store.views.flush-ms the counts are added to products.view_count in one JDBC batch
+// the column is used for sortBy=popular and the admin report
+@Service
+public class ProductViewService {
+
+    private static final String ADD_VIEWS = "UPDATE products SET view_count = view_count + ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ProductRepository productRepository;
+    private final ViewCounter counter;
+
+    // numbers of the last flush, for the admin report
+    private volatile Instant lastFlush;
+    private volatile int lastFlushProducts;
+
+    public ProductViewService(JdbcTemplate jdbcTemplate, ProductRepository productRepository, @Value("${store.views.max-tracked:100000}") int maxTracked) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.productRepository = productRepository;
+        this.counter = new ViewCounter(maxTracked);
+    }
+
+    // called when a product detail page is opened
+    public void recordView(Long productId) {
+        if (productId != null) {
+            counter.increment(productId);
+        }
+    }
+
+    // write the collected counts, returns the number of products updated
+    // on a database error the counts are put back and written by the next flush
+    @Scheduled(fixedDelayString = "${store.views.flush-ms:30000}")
+    public synchronized int flush() {
+        ViewCounter.Batch batch = counter.drain();
+        if (batch.size() > 0) {
+            long[] ids = batch.getIds();
+            long[] counts = batch.getCounts();
+            try {
+                jdbcTemplate.batchUpdate(ADD_VIEWS, new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ps.setLong(1, counts[i]);
+                        ps.setLong(2, ids[i]);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return ids.length;
+                    }
+                });
+            } catch (RuntimeException e) {
+                for (int i = 0; i < ids.length; i++) {
+                    counter.addBack(ids[i], counts[i]);
+                }
+                throw e;
+            }
+        }
+        lastFlush = Instant.now();
+        lastFlushProducts = batch.size();
+        return batch.size();
+    }
+
+    // write what is left before the application stops
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    // the n most viewed products according to the database
+    public List<Product> getMostViewed(int n) {
+        return productRepository.findAll(PageRequest.of(0, n, Sort.by(Sort.Direction.DESC, "viewCount").and(Sort.by(Sort.Direction.ASC, "id")))).getContent();
+    }
+
+    // numbers for monitoring the view counting
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("pendingProducts", counter.trackedProducts());
+        status.put("droppedViews", counter.dropped());
+        if (lastFlush != null) {
+            status.put("lastFlush", lastFlush.toString());
+        } else {
+            status.put("lastFlush", null);
+        }
+        status.put("lastFlushProducts", lastFlushProducts);
+        return status;
+    }
+}
@@ -0,0 +1,133 @@
+package com.CSC492.store.service;
+
+import com.CSC492.store.event.ProductChangedEvent;
+import com.CSC492.store.event.ReviewChangedEvent;
+import com.CSC492.store.model.Product;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Precomputed top-rated ranking for /api/products/recommendations/top-rated
+// the ranking of the best `size` products is built in the background and kept as an immutable list,
+// a request for n <= size products is a slice of it
+// review and product changes mark the ranking as dirty, the refresh task checks the flag every
+// store.leaderboard.max-staleness-ms, so a change shows up within that time
+// the ranking is also rebuilt every store.leaderboard.full-refresh-ms for changes without an event (stock)
+@Service
+public class TopRatedLeaderboard {
+
+    private final ProductService productService;
+    private final int size;
+    private final long fullRefreshMillis;
+
+    private final AtomicBoolean dirty = new AtomicBoolean(true);
+    // null until the first build finished
+    private volatile Ranking ranking;
+
+    public TopRatedLeaderboard(ProductService productService,
+                               @Value("${store.leaderboard.size:200}") int size,
+                               @Value("${store.leaderboard.full-refresh-ms:300000}") long fullRefreshMillis) {
+        this.productService = productService;
+        this.size = size;
+        this.fullRefreshMillis = fullRefreshMillis;
+    }
+
+    // immutable result of one build
+    private static class Ranking {
+        private final List<Product> products;
+        // true when the catalog had no more products than the ranking size, so any n can be served
+        private final boolean complete;
+        private final Instant refreshedAt;
+        private final long buildMillis;
+
+        Ranking(List<Product> products, boolean complete, Instant refreshedAt, long buildMillis) {
+            this.products = products;
+            this.complete = complete;
+            this.refreshedAt = refreshedAt;
+            this.buildMillis = buildMillis;
+        }
+    }
+
+    // top n products, same result as ProductService.getTopRatedProducts(n) up to the staleness bound
+    public List<Product> getTopRated(int n) {
+        Ranking current = ranking;
+        if (current == null) {
+            return productService.getTopRatedProducts(n);
+        }
+        if (current.complete && (n <= 0 || n >= current.products.size())) {
+            return current.products;
+        }
+        if (n > 0 && n <= current.products.size()) {
+            return current.products.subList(0, n);
+        }
+        // more products than the ranking holds
+        return productService.getTopRatedProducts(n);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(DomainEventOutbox.LOADER_ORDER)
+    public void buildOnStartup() {
+        refresh();
+    }
+
+    // called by the outbox, the next scheduled refresh rebuilds the ranking
+    public void onReviewsChanged(List<ReviewChangedEvent> events) {
+        dirty.set(true);
+    }
+
+    public void onProductsChanged(List<ProductChangedEvent> events) {
+        dirty.set(true);
+    }
+
+    // rebuild when something changed or the ranking is older than the full refresh interval
+    @Scheduled(fixedDelayString = "${store.leaderboard.max-staleness-ms:5000}")
+    public void refreshIfNeeded() {
+        Ranking current = ranking;
+        boolean expired = current == null || current.refreshedAt.plusMillis(fullRefreshMillis).isBefore(Instant.now());
+        if (dirty.get() || expired) {
+            refresh();
+        }
+    }
+
+    // build a new ranking and swap it in
+    public synchronized void refresh() {
+        // clear the flag first, a change that happens during the build marks it again
+        dirty.set(false);
+        long start = System.nanoTime();
+        List<Product> top = productService.getTopRatedProducts(size + 1);
+        boolean complete = top.size() <= size;
+        if (!complete) {
+            top = top.subList(0, size);
+        }
+        long buildMillis = (System.nanoTime() - start) / 1_000_000;
+        ranking = new Ranking(List.copyOf(top), complete, Instant.now(), buildMillis);
+    }
+
+    // numbers for monitoring the leaderboard
+    public Map<String, Object> getStatus() {
+        Ranking current = ranking;
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("size", size);
+        status.put("dirty", dirty.get());
+        if (current != null) {
+            status.put("rankedProducts", current.products.size());
+            status.put("lastRefresh", current.refreshedAt.toString());
+            status.put("buildMillis", current.buildMillis);
+        } else {
+            status.put("rankedProducts", 0);
+            status.put("lastRefresh", null);
+            status.put("buildMillis", null);
+        }
+        return status;
+    }
+}
@@ -0,0 +1,146 @@
+package com.CSC492.store.service;
+
+import com.CSC492.store.event.OrderPlacedEvent;
+import com.CSC492.store.model.Product;
+import com.CSC492.store.util.ProductAlgorithms;
+import com.CSC492.store.util.SlidingWindowCounter;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Trending products: units sold and detail page views over the last hour or day
+// every product sold or viewed recently has a SlidingWindowCounter, orders and views add to it without locks
+// a ranking is a top-k over the counters in memory, cached for store.trending.cache-ms,
+// so the order tables are never read for it
+// counters without anything in the last day are dropped by a cleanup task
+@Service
+public class TrendingService {
+
+    public enum Window { HOUR, DAY }
+
+    public enum Metric { SALES, VIEWS }
+
+    private final CatalogSnapshotService catalogSnapshotService;
+    // products kept per ranking
+    private final int size;
+    private final long cacheMillis;
+
+    private final Map<Long, SlidingWindowCounter> sales = new ConcurrentHashMap<>();
+    private final Map<Long, SlidingWindowCounter> views = new ConcurrentHashMap<>();
+    // "WINDOW/METRIC" -> last ranking
+    private final Map<String, Ranking> rankings = new ConcurrentHashMap<>();
+
+    public TrendingService(CatalogSnapshotService catalogSnapshotService,
+                           @Value("${store.trending.size:100}") int size,
+                           @Value("${store.trending.cache-ms:10000}") long cacheMillis) {
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.size = size;
+        this.cacheMillis = cacheMillis;
+    }
+
+    // immutable result of one ranking, product ids best first
+    private static class Ranking {
+        private final long[] ids;
+        private final long computedAt;
+
+        Ranking(long[] ids, long computedAt) {
+            this.ids = ids;
+            this.computedAt = computedAt;
+        }
+    }
+
+    // count the units of new orders at the time they were placed, called by the outbox
+    public void onOrdersPlaced(List<OrderPlacedEvent> events) {
+        long now = System.currentTimeMillis();
+        for (OrderPlacedEvent event : events) {
+            long[] productIds = event.getProductIds();
+            int[] quantities = event.getQuantities();
+            for (int i = 0; i < productIds.length; i++) {
+                sales.computeIfAbsent(productIds[i], id -> new SlidingWindowCounter()).add(event.getPlacedAt(), now, quantities[i]);
+            }
+        }
+    }
+
+    // called when a product detail page is opened
+    public void recordView(Long productId) {
+        if (productId != null) {
+            views.computeIfAbsent(productId, id -> new SlidingWindowCounter()).add(System.currentTimeMillis(), 1);
+        }
+    }
+
+    // up to n products with the highest count in the window, at most store.trending.size
+    // products with a count of 0 are not included
+    public List<Product> getTrending(Window window, Metric metric, int n) {
+        long now = System.currentTimeMillis();
+        String key = window + "/" + metric;
+        Ranking ranking = rankings.get(key);
+        if (ranking == null || ranking.computedAt + cacheMillis <= now) {
+            ranking = rank(window, metric, now);
+            rankings.put(key, ranking);
+        }
+        long[] ids = ranking.ids;
+        if (n > 0 && n < ids.length) {
+            ids = Arrays.copyOf(ids, n);
+        }
+        return catalogSnapshotService.getProducts(ids);
+    }
+
+    // drop the counters of products without sales or views in the last day
+    @Scheduled(fixedDelayString = "${store.trending.cleanup-ms:600000}")
+    public void removeIdle() {
+        long now = System.currentTimeMillis();
+        sales.values().removeIf(counter -> counter.isIdle(now));
+        views.values().removeIf(counter -> counter.isIdle(now));
+    }
+
+    // top products of one window and metric, ties by newer product first
+    private Ranking rank(Window window, Metric metric, long now) {
+        Map<Long, SlidingWindowCounter> counters;
+        if (metric == Metric.VIEWS) {
+            counters = views;
+        } else {
+            counters = sales;
+        }
+
+        // scoring stage, one window sum per product into primitive arrays
+        long[] ids = new long[counters.size()];
+        long[] counts = new long[ids.length];
+        int found = 0;
+        for (Map.Entry<Long, SlidingWindowCounter> entry : counters.entrySet()) {
+            if (found == ids.length) {
+                // added while we were reading, it shows up in the next ranking
+                break;
+            }
+            long count;
+            if (window == Window.DAY) {
+                count = entry.getValue().lastDay(now);
+            } else {
+                count = entry.getValue().lastHour(now);
+            }
+            if (count > 0) {
+                ids[found] = entry.getKey();
+                counts[found] = count;
+                found++;
+            }
+        }
+
+        int[] top = ProductAlgorithms.topKIndexes(found, size, (i, j) -> {
+            int compare = Long.compare(counts[j], counts[i]);
+            if (compare != 0) {
+                return compare;
+            }
+            return Long.compare(ids[j], ids[i]);
+        });
+        long[] ranked = new long[top.length];
+        for (int i = 0; i < top.length; i++) {
+            ranked[i] = ids[top[i]];
+        }
+        return new Ranking(ranked, now);
+    }
+}
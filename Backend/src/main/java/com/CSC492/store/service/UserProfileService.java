@@ -0,0 +1,144 @@
+package com.CSC492.store.service;
+
+import com.CSC492.store.event.OrderPlacedEvent;
+import com.CSC492.store.model.Order;
+import com.CSC492.store.model.OrderItem;
+import com.CSC492.store.model.Product;
+import com.CSC492.store.model.UserPurchaseProfile;
+import com.CSC492.store.repository.OrderRepository;
+import com.CSC492.store.repository.ProfiledOrderRepository;
+import com.CSC492.store.repository.UserPurchaseProfileRepository;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+// Keeps the per customer purchase profiles (category counts and bought product ids)
+// new orders are added from the outbox after they committed (DomainEventOutbox),
+// the backfill job builds the profiles of existing customers from their orders
+@Service
+public class UserProfileService {
+
+    // customers rebuilt per page of the backfill
+    private static final int BACKFILL_PAGE_SIZE = 500;
+
+    private final UserPurchaseProfileRepository profileRepository;
+    private final OrderRepository orderRepository;
+    private final ProfiledOrderRepository profiledOrderRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public UserProfileService(UserPurchaseProfileRepository profileRepository, OrderRepository orderRepository,
+                              ProfiledOrderRepository profiledOrderRepository, PlatformTransactionManager transactionManager) {
+        this.profileRepository = profileRepository;
+        this.orderRepository = orderRepository;
+        this.profiledOrderRepository = profiledOrderRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // the profile of a customer, empty if the customer never ordered
+    public Optional<UserPurchaseProfile> findProfile(Long userId) {
+        return profileRepository.findById(userId);
+    }
+
+    // add the orders of a batch of events, the orders are read in one query
+    // and each profile is updated in its own short transaction
+    public void onOrdersPlaced(List<OrderPlacedEvent> events) {
+        List<Long> orderIds = new ArrayList<>(events.size());
+        for (OrderPlacedEvent event : events) {
+            orderIds.add(event.getOrderId());
+        }
+        for (Order order : orderRepository.findByIdInOrderByIdAsc(orderIds)) {
+            transactionTemplate.executeWithoutResult(status -> recordOrder(order));
+        }
+    }
+
+    // add the items of an order to the customer's profile, must run inside a transaction
+    // the outbox can deliver an order twice, an order already marked in profiled_orders is skipped
+    public void recordOrder(Order order) {
+        if (order.getUser() == null || order.getUser().getId() == null) {
+            return;
+        }
+        Long userId = order.getUser().getId();
+        UserPurchaseProfile profile = profileRepository.findForUpdate(userId).orElse(new UserPurchaseProfile(userId));
+        if (profiledOrderRepository.markProfiled(order.getId(), userId) == 0) {
+            return;
+        }
+        addItems(profile, order.getOrderItems());
+        profileRepository.save(profile);
+    }
+
+    // Backfill job, rebuilds the profile of every customer with orders
+    // each customer is rebuilt in its own short transaction
+    // returns the number of profiles rebuilt
+    public int backfillAll() {
+        int rebuilt = 0;
+        int page = 0;
+        Slice<Long> customers;
+        do {
+            customers = orderRepository.findCustomerIds(PageRequest.of(page++, BACKFILL_PAGE_SIZE));
+            for (Long userId : customers.getContent()) {
+                transactionTemplate.executeWithoutResult(status -> rebuild(userId));
+                rebuilt++;
+            }
+        } while (customers.hasNext());
+        return rebuilt;
+    }
+
+    // first start with existing orders, build the profiles once
+    @EventListener(ApplicationReadyEvent.class)
+    @org.springframework.core.annotation.Order(DomainEventOutbox.LOADER_ORDER)
+    public void backfillIfEmpty() {
+        if (profileRepository.count() == 0 && orderRepository.count() > 0) {
+            backfillAll();
+        }
+    }
+
+    // recompute one profile from all the customer's orders
+    private void rebuild(Long userId) {
+        UserPurchaseProfile profile = profileRepository.findForUpdate(userId).orElse(new UserPurchaseProfile(userId));
+        profile.getCategoryCounts().clear();
+        profile.setPurchasedProductIds(new long[0]);
+        // every order read here is counted, its event must not add it again
+        for (Order order : orderRepository.findByUserId(userId)) {
+            addItems(profile, order.getOrderItems());
+            profiledOrderRepository.markProfiled(order.getId(), userId);
+        }
+        profileRepository.save(profile);
+    }
+
+    // count one purchase per item in its category and remember the product id
+    private static void addItems(UserPurchaseProfile profile, List<OrderItem> items) {
+        if (items == null) {
+            return;
+        }
+        long[] purchased = profile.getPurchasedProductIds();
+        long[] ids = Arrays.copyOf(purchased, purchased.length + items.size());
+        int count = purchased.length;
+
+        for (OrderItem item : items) {
+            Product product = item.getProduct();
+            // skip invalid items to avoid null
+            if (product == null || product.getId() == null) {
+                continue;
+            }
+            String category;
+            if (product.getCategory() != null) {
+                category = product.getCategory();
+            } else {
+                category = "Uncategorized";
+            }
+            profile.getCategoryCounts().merge(category, 1, Integer::sum);
+            ids[count++] = product.getId();
+        }
+        profile.setPurchasedProductIds(Arrays.copyOf(ids, count));
+    }
+}
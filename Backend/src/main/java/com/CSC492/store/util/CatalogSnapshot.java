@@ -0,0 +1,569 @@
+package com.CSC492.store.util;
+
+import com.CSC492.store.dto.ProductFacets;
+import com.CSC492.store.model.Product;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Immutable column-oriented copy of the product catalog
+// every product is one row and every field we filter or sort on is its own primitive array,
+// so a listing request is a tight loop over longs and ints instead of Product objects
+// rows are ordered by product id, which makes the default sort a plain forward scan
+// Once built a snapshot never changes, writes create a new snapshot (copy-on-write)
+// so readers can use it from any thread without locking
+// a write copies only the columns it changes and keeps the price orders sorted without a full sort
+public final class CatalogSnapshot {
+
+    // price used for products without a price, sorts first like NULL does in MySQL
+    private static final long NO_PRICE = Long.MIN_VALUE;
+
+    private final Product[] products;
+    private final long[] ids;
+    private final long[] priceCents;
+    private final int[] stock;
+    // category stored as a small int code, the dictionary maps lowercase category name -> code
+    private final int[] categoryCodes;
+    private final Map<String, Integer> categoryDictionary;
+    // code -> category name as first seen, for the facet counts
+    private final List<String> categoryNames;
+    // row numbers ordered by price, ties by id ascending
+    private final int[] byPriceAsc;
+    private final int[] byPriceDesc;
+    // position of each row in the two price orders, used to sort search hits
+    private final int[] priceAscRank;
+    private final int[] priceDescRank;
+
+    private CatalogSnapshot(Product[] products) {
+        int n = products.length;
+        this.products = products;
+        this.ids = new long[n];
+        this.priceCents = new long[n];
+        this.stock = new int[n];
+        this.categoryCodes = new int[n];
+        this.categoryDictionary = new HashMap<>();
+        this.categoryNames = new ArrayList<>();
+
+        for (int row = 0; row < n; row++) {
+            Product p = products[row];
+            ids[row] = p.getId();
+            priceCents[row] = toCents(p.getPrice(), RoundingMode.HALF_UP);
+
+            stock[row] = stockOf(p);
+
+            String category = categoryKey(p);
+            Integer code = categoryDictionary.get(category);
+            if (code == null) {
+                code = categoryDictionary.size();
+                categoryDictionary.put(category, code);
+                categoryNames.add(p.getCategory());
+            }
+            categoryCodes[row] = code;
+        }
+
+        // rows are already in id order, so a stable sort on price keeps ties by id ascending
+        Integer[] rows = new Integer[n];
+        for (int row = 0; row < n; row++) {
+            rows[row] = row;
+        }
+        Arrays.sort(rows, Comparator.comparingLong(row -> priceCents[row]));
+        this.byPriceAsc = new int[n];
+        this.priceAscRank = new int[n];
+        for (int i = 0; i < n; i++) {
+            byPriceAsc[i] = rows[i];
+            priceAscRank[rows[i]] = i;
+        }
+        Arrays.sort(rows, (row1, row2) -> Long.compare(priceCents[row2], priceCents[row1]));
+        this.byPriceDesc = new int[n];
+        this.priceDescRank = new int[n];
+        for (int i = 0; i < n; i++) {
+            byPriceDesc[i] = rows[i];
+            priceDescRank[rows[i]] = i;
+        }
+    }
+
+    // build a snapshot from a list of products, products without an id are skipped
+    public static CatalogSnapshot of(List<Product> products) {
+        List<Product> valid = new ArrayList<>(products.size());
+        for (Product p : products) {
+            if (p.getId() != null) {
+                valid.add(p);
+            }
+        }
+        Product[] rows = valid.toArray(new Product[0]);
+        Arrays.sort(rows, Comparator.comparing(Product::getId));
+        return new CatalogSnapshot(rows);
+    }
+
+    // every array of an existing snapshot, used by the copy-on-write updates
+    // arrays that did not change are shared with the previous snapshot, nothing is ever written to them again
+    private CatalogSnapshot(Product[] products, long[] ids, long[] priceCents, int[] stock, int[] categoryCodes,
+                            Map<String, Integer> categoryDictionary, List<String> categoryNames,
+                            int[] byPriceAsc, int[] byPriceDesc, int[] priceAscRank, int[] priceDescRank) {
+        this.products = products;
+        this.ids = ids;
+        this.priceCents = priceCents;
+        this.stock = stock;
+        this.categoryCodes = categoryCodes;
+        this.categoryDictionary = categoryDictionary;
+        this.categoryNames = categoryNames;
+        this.byPriceAsc = byPriceAsc;
+        this.byPriceDesc = byPriceDesc;
+        this.priceAscRank = priceAscRank;
+        this.priceDescRank = priceDescRank;
+    }
+
+    // new snapshot with the product inserted, or replaced if the id is already present
+    public CatalogSnapshot withProduct(Product product) {
+        return withProducts(List.of(product));
+    }
+
+    // new snapshot with all the products inserted or replaced at once
+    // a replaced product with the same price only changes its entry in the products, stock and
+    // category columns, those are cloned once for the whole batch and the price orders are shared
+    // a new product or a new price moves rows in the price orders, in O(n) without sorting again
+    public CatalogSnapshot withProducts(Collection<Product> changed) {
+        Product[] newProducts = null;
+        int[] newStock = null;
+        int[] newCodes = null;
+        Map<String, Integer> dictionary = categoryDictionary;
+        List<String> names = categoryNames;
+        List<Product> moved = new ArrayList<>();
+
+        for (Product p : changed) {
+            if (p.getId() == null) {
+                continue;
+            }
+            int row = Arrays.binarySearch(ids, p.getId());
+            if (row < 0 || toCents(p.getPrice(), RoundingMode.HALF_UP) != priceCents[row]) {
+                moved.add(p);
+                continue;
+            }
+            if (newProducts == null) {
+                newProducts = products.clone();
+                newStock = stock.clone();
+                newCodes = categoryCodes.clone();
+            }
+            newProducts[row] = p;
+            newStock[row] = stockOf(p);
+            String key = categoryKey(p);
+            if (!dictionary.containsKey(key)) {
+                if (dictionary == categoryDictionary) {
+                    dictionary = new HashMap<>(categoryDictionary);
+                    names = new ArrayList<>(categoryNames);
+                }
+                dictionary.put(key, dictionary.size());
+                names.add(p.getCategory());
+            }
+            newCodes[row] = dictionary.get(key);
+        }
+
+        CatalogSnapshot result = this;
+        if (newProducts != null) {
+            result = new CatalogSnapshot(newProducts, ids, priceCents, newStock, newCodes, dictionary, names,
+                    byPriceAsc, byPriceDesc, priceAscRank, priceDescRank);
+        }
+        for (Product p : moved) {
+            result = result.withoutProduct(p.getId()).inserted(p);
+        }
+        return result;
+    }
+
+    // new snapshot without the product, or this snapshot if the id is not present
+    public CatalogSnapshot withoutProduct(Long productId) {
+        if (productId == null) {
+            return this;
+        }
+        int row = Arrays.binarySearch(ids, productId);
+        if (row < 0) {
+            return this;
+        }
+        int n = products.length - 1;
+        Product[] newProducts = new Product[n];
+        System.arraycopy(products, 0, newProducts, 0, row);
+        System.arraycopy(products, row + 1, newProducts, row, n - row);
+        long[] newIds = new long[n];
+        System.arraycopy(ids, 0, newIds, 0, row);
+        System.arraycopy(ids, row + 1, newIds, row, n - row);
+        long[] newCents = new long[n];
+        System.arraycopy(priceCents, 0, newCents, 0, row);
+        System.arraycopy(priceCents, row + 1, newCents, row, n - row);
+        int[] newStock = new int[n];
+        System.arraycopy(stock, 0, newStock, 0, row);
+        System.arraycopy(stock, row + 1, newStock, row, n - row);
+        int[] newCodes = new int[n];
+        System.arraycopy(categoryCodes, 0, newCodes, 0, row);
+        System.arraycopy(categoryCodes, row + 1, newCodes, row, n - row);
+
+        int[] asc = withoutRow(byPriceAsc, row);
+        int[] desc = withoutRow(byPriceDesc, row);
+        return new CatalogSnapshot(newProducts, newIds, newCents, newStock, newCodes, categoryDictionary, categoryNames,
+                asc, desc, ranks(asc), ranks(desc));
+    }
+
+    // new snapshot with a product whose id is not present yet
+    private CatalogSnapshot inserted(Product product) {
+        int row = -Arrays.binarySearch(ids, product.getId()) - 1;
+        int n = products.length + 1;
+        Product[] newProducts = new Product[n];
+        System.arraycopy(products, 0, newProducts, 0, row);
+        System.arraycopy(products, row, newProducts, row + 1, n - row - 1);
+        newProducts[row] = product;
+        long[] newIds = new long[n];
+        System.arraycopy(ids, 0, newIds, 0, row);
+        System.arraycopy(ids, row, newIds, row + 1, n - row - 1);
+        newIds[row] = product.getId();
+        long[] newCents = new long[n];
+        System.arraycopy(priceCents, 0, newCents, 0, row);
+        System.arraycopy(priceCents, row, newCents, row + 1, n - row - 1);
+        newCents[row] = toCents(product.getPrice(), RoundingMode.HALF_UP);
+        int[] newStock = new int[n];
+        System.arraycopy(stock, 0, newStock, 0, row);
+        System.arraycopy(stock, row, newStock, row + 1, n - row - 1);
+        newStock[row] = stockOf(product);
+
+        Map<String, Integer> dictionary = categoryDictionary;
+        List<String> names = categoryNames;
+        String key = categoryKey(product);
+        if (!dictionary.containsKey(key)) {
+            dictionary = new HashMap<>(categoryDictionary);
+            names = new ArrayList<>(categoryNames);
+            dictionary.put(key, dictionary.size());
+            names.add(product.getCategory());
+        }
+        int[] newCodes = new int[n];
+        System.arraycopy(categoryCodes, 0, newCodes, 0, row);
+        System.arraycopy(categoryCodes, row, newCodes, row + 1, n - row - 1);
+        newCodes[row] = dictionary.get(key);
+
+        int[] asc = withRow(byPriceAsc, row, newCents, newIds, true);
+        int[] desc = withRow(byPriceDesc, row, newCents, newIds, false);
+        return new CatalogSnapshot(newProducts, newIds, newCents, newStock, newCodes, dictionary, names,
+                asc, desc, ranks(asc), ranks(desc));
+    }
+
+    // a price order without the removed row, the rows after it move up by one
+    private static int[] withoutRow(int[] order, int removed) {
+        int[] result = new int[order.length - 1];
+        int i = 0;
+        for (int row : order) {
+            if (row == removed) {
+                continue;
+            }
+            if (row > removed) {
+                row--;
+            }
+            result[i++] = row;
+        }
+        return result;
+    }
+
+    // a price order with the inserted row at its place, the rows at or after it move down by one
+    // cents and ids are the columns of the new snapshot, ties are by id ascending like in the constructor
+    private static int[] withRow(int[] order, int inserted, long[] cents, long[] ids, boolean ascending) {
+        int[] result = new int[order.length + 1];
+        long price = cents[inserted];
+        long id = ids[inserted];
+        boolean placed = false;
+        int i = 0;
+        for (int row : order) {
+            if (row >= inserted) {
+                row++;
+            }
+            if (!placed) {
+                boolean after;
+                if (ascending) {
+                    after = cents[row] > price || (cents[row] == price && ids[row] > id);
+                } else {
+                    after = cents[row] < price || (cents[row] == price && ids[row] > id);
+                }
+                if (after) {
+                    result[i++] = inserted;
+                    placed = true;
+                }
+            }
+            result[i++] = row;
+        }
+        if (!placed) {
+            result[i] = inserted;
+        }
+        return result;
+    }
+
+    // position of every row in a price order
+    private static int[] ranks(int[] order) {
+        int[] rank = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            rank[order[i]] = i;
+        }
+        return rank;
+    }
+
+    private static int stockOf(Product p) {
+        if (p.getStock() != null) {
+            return p.getStock();
+        }
+        return 0;
+    }
+
+    // dictionary key of the product's category, lowercase, empty for no category
+    private static String categoryKey(Product p) {
+        if (p.getCategory() != null) {
+            return p.getCategory().toLowerCase();
+        }
+        return "";
+    }
+
+    public int size() {
+        return products.length;
+    }
+
+    // the product with this id, or null if it is not in the snapshot
+    public Product get(Long productId) {
+        if (productId == null) {
+            return null;
+        }
+        int row = Arrays.binarySearch(ids, productId);
+        if (row < 0) {
+            return null;
+        }
+        return products[row];
+    }
+
+    // same contract as ProductService.getProducts, answered from the arrays
+    // one pass over the rows in sort order counts the matches and keeps only the requested page
+    // searchIds are the sorted product ids matching the search keyword, or null when there is no search
+    // with a search only the rows of those ids are visited
+    public Page<Product> query(String category, long[] searchIds, BigDecimal minPrice, BigDecimal maxPrice, Boolean inStock, int page, int size, ProductSort sort) {
+        PageRequest pageRequest = PageRequest.of(page, size, sort.toSort());
+
+        // resolve the category once, a category that no product has matches nothing
+        int categoryCode = -1;
+        if (category != null && !category.isEmpty()) {
+            Integer code = categoryDictionary.get(category.toLowerCase());
+            if (code == null) {
+                return new PageImpl<>(List.of(), pageRequest, 0);
+            }
+            categoryCode = code;
+        }
+
+        // convert the price bounds to cents, rounding inward so the bounds stay inclusive
+        long minCents = Long.MIN_VALUE;
+        if (minPrice != null) {
+            minCents = toCents(minPrice, RoundingMode.CEILING);
+        }
+        long maxCents = Long.MAX_VALUE;
+        if (maxPrice != null) {
+            maxCents = toCents(maxPrice, RoundingMode.FLOOR);
+        }
+        boolean priceFilter = minPrice != null || maxPrice != null;
+
+        // the rows to visit in sort order, every row or only the search hits
+        int[] order = null;
+        int n = products.length;
+        if (searchIds != null) {
+            order = searchRows(searchIds, sort);
+            n = order.length;
+        }
+
+        long start = (long) page * size;
+        long end = start + size;
+        List<Product> content = new ArrayList<>();
+        long total = 0;
+
+        for (int i = 0; i < n; i++) {
+            int row;
+            if (order != null) {
+                row = order[i];
+            } else {
+                row = rowAt(sort, i);
+            }
+
+            if (categoryCode >= 0 && categoryCodes[row] != categoryCode) {
+                continue;
+            }
+            if (priceFilter) {
+                long cents = priceCents[row];
+                if (cents == NO_PRICE || cents < minCents || cents > maxCents) {
+                    continue;
+                }
+            }
+            if (inStock != null && (stock[row] > 0) != inStock) {
+                continue;
+            }
+            if (total >= start && total < end) {
+                content.add(products[row]);
+            }
+            total++;
+        }
+        return new PageImpl<>(content, pageRequest, total);
+    }
+
+    // facet counts for the filter UI, each facet ignores its own filter
+    // one pass counts categories and stock and finds the price range, a second pass over the
+    // same rows fills the price histogram
+    public ProductFacets facets(String category, long[] searchIds, BigDecimal minPrice, BigDecimal maxPrice, Boolean inStock, int buckets) {
+        ProductFacets facets = new ProductFacets();
+
+        // -2 for a category no product has, so the category filter fails for every row
+        int categoryCode = -1;
+        if (category != null && !category.isEmpty()) {
+            categoryCode = categoryDictionary.getOrDefault(category.toLowerCase(), -2);
+        }
+        long minCents = Long.MIN_VALUE;
+        if (minPrice != null) {
+            minCents = toCents(minPrice, RoundingMode.CEILING);
+        }
+        long maxCents = Long.MAX_VALUE;
+        if (maxPrice != null) {
+            maxCents = toCents(maxPrice, RoundingMode.FLOOR);
+        }
+        boolean priceFilter = minPrice != null || maxPrice != null;
+
+        int[] order = null;
+        int n = products.length;
+        if (searchIds != null) {
+            order = searchRows(searchIds, ProductSort.ID_ASC);
+            n = order.length;
+        }
+
+        long[] categoryCounts = new long[categoryNames.size()];
+        long lowest = Long.MAX_VALUE;
+        long highest = Long.MIN_VALUE;
+        for (int i = 0; i < n; i++) {
+            int row;
+            if (order != null) {
+                row = order[i];
+            } else {
+                row = i;
+            }
+            long cents = priceCents[row];
+            boolean categoryOk = categoryCode == -1 || categoryCodes[row] == categoryCode;
+            boolean priceOk = !priceFilter || (cents != NO_PRICE && cents >= minCents && cents <= maxCents);
+            boolean stockOk = inStock == null || (stock[row] > 0) == inStock;
+
+            if (priceOk && stockOk) {
+                categoryCounts[categoryCodes[row]]++;
+            }
+            if (categoryOk && priceOk) {
+                if (stock[row] > 0) {
+                    facets.setInStock(facets.getInStock() + 1);
+                } else {
+                    facets.setOutOfStock(facets.getOutOfStock() + 1);
+                }
+            }
+            if (categoryOk && stockOk && cents != NO_PRICE) {
+                lowest = Math.min(lowest, cents);
+                highest = Math.max(highest, cents);
+            }
+        }
+
+        Map<String, Long> counts = new HashMap<>();
+        for (int code = 0; code < categoryCounts.length; code++) {
+            // products without a category are not listed
+            if (categoryCounts[code] > 0 && categoryNames.get(code) != null) {
+                counts.put(categoryNames.get(code), categoryCounts[code]);
+            }
+        }
+        facets.setCategoriesByCount(counts);
+
+        // nothing with a price matched, no histogram
+        if (lowest > highest) {
+            return facets;
+        }
+        PriceHistogram histogram = new PriceHistogram(lowest, highest, buckets);
+        long[] bucketCounts = new long[histogram.getBucketCount()];
+        for (int i = 0; i < n; i++) {
+            int row;
+            if (order != null) {
+                row = order[i];
+            } else {
+                row = i;
+            }
+            boolean categoryOk = categoryCode == -1 || categoryCodes[row] == categoryCode;
+            boolean stockOk = inStock == null || (stock[row] > 0) == inStock;
+            if (categoryOk && stockOk && priceCents[row] != NO_PRICE) {
+                bucketCounts[histogram.indexOf(priceCents[row])]++;
+            }
+        }
+        for (int b = 0; b < bucketCounts.length; b++) {
+            facets.getPriceHistogram().add(new ProductFacets.PriceBucket(histogram.from(b), histogram.to(b), bucketCounts[b]));
+        }
+        return facets;
+    }
+
+    // rows of the given product ids, ordered like the full scan would visit them
+    private int[] searchRows(long[] searchIds, ProductSort sort) {
+        int[] rows = new int[searchIds.length];
+        int count = 0;
+        for (long id : searchIds) {
+            int row = Arrays.binarySearch(ids, id);
+            if (row >= 0) {
+                rows[count++] = row;
+            }
+        }
+        rows = Arrays.copyOf(rows, count);
+
+        // searchIds are ascending, so the rows are already in id order
+        switch (sort) {
+            case ID_DESC:
+                for (int i = 0, j = count - 1; i < j; i++, j--) {
+                    int swap = rows[i];
+                    rows[i] = rows[j];
+                    rows[j] = swap;
+                }
+                return rows;
+            case PRICE_ASC:
+                return sortByRank(rows, priceAscRank);
+            case PRICE_DESC:
+                return sortByRank(rows, priceDescRank);
+            default:
+                return rows;
+        }
+    }
+
+    // reorder rows by their position in a precomputed order, packing rank and row into one long
+    private static int[] sortByRank(int[] rows, int[] rank) {
+        long[] keys = new long[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            keys[i] = ((long) rank[rows[i]] << 32) | rows[i];
+        }
+        Arrays.sort(keys);
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = (int) keys[i];
+        }
+        return rows;
+    }
+
+    // the row at position i for the given sort order
+    private int rowAt(ProductSort sort, int i) {
+        switch (sort) {
+            case ID_DESC:
+                return products.length - 1 - i;
+            case PRICE_ASC:
+                return byPriceAsc[i];
+            case PRICE_DESC:
+                return byPriceDesc[i];
+            default:
+                return i;
+        }
+    }
+
+    private static long toCents(BigDecimal price, RoundingMode rounding) {
+        if (price == null) {
+            return NO_PRICE;
+        }
+        return price.movePointRight(2).setScale(0, rounding).longValue();
+    }
+}
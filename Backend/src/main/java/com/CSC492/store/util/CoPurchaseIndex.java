@@ -0,0 +1,265 @@
+package com.CSC492.store.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// "Customers who bought this also bought" index
+// sparse co-occurrence matrix: for every product, how many orders contained it together with each other product
+// row of product a = LongIntHashMap other product id -> number of orders with both
+// next to the matrix every product keeps its top neighbors (highest count first, ties by lower id),
+// so a lookup is a map get and an array copy
+// counts only grow when an order is added, so the neighbor list is updated with the one changed count
+// instead of scanning the row, only a product removal rescans the rows that listed it
+// Writers are synchronized, readers only touch the neighbor map and never see a list being changed
+public class CoPurchaseIndex {
+
+    private static final long[] NO_IDS = new long[0];
+
+    // neighbors kept per product
+    private final int neighborCount;
+    // orders with more distinct products only count their first maxBasket products,
+    // the number of pairs grows with the square of the basket
+    private final int maxBasket;
+
+    // product id -> 1 + index of its row in rows
+    private final LongIntHashMap rowIndex = new LongIntHashMap();
+    private final List<LongIntHashMap> rows = new ArrayList<>();
+    // indexes of rows freed by removeProduct, reused before rows grows
+    private final ArrayDeque<Integer> freeRows = new ArrayDeque<>();
+    // product id -> its current top neighbors
+    private final Map<Long, Neighbors> neighbors = new ConcurrentHashMap<>();
+    private long pairCount;
+
+    public CoPurchaseIndex(int neighborCount, int maxBasket) {
+        this.neighborCount = neighborCount;
+        this.maxBasket = maxBasket;
+    }
+
+    // immutable top neighbor list, ids and counts are parallel arrays
+    private static class Neighbors {
+        private final long[] ids;
+        private final int[] counts;
+
+        Neighbors(long[] ids, int[] counts) {
+            this.ids = ids;
+            this.counts = counts;
+        }
+    }
+
+    // count one order, productIds may contain duplicates
+    public synchronized void addOrder(long[] productIds) {
+        long[] basket = distinct(productIds);
+        if (basket.length > maxBasket) {
+            basket = Arrays.copyOf(basket, maxBasket);
+        }
+        if (basket.length < 2) {
+            return;
+        }
+        for (long a : basket) {
+            LongIntHashMap row = rowFor(a);
+            for (long b : basket) {
+                if (a == b) {
+                    continue;
+                }
+                int count = row.addTo(b, 1);
+                if (count == 1) {
+                    pairCount++;
+                }
+                offer(a, b, count);
+            }
+        }
+    }
+
+    // forget a product, used when it was deleted
+    public synchronized void removeProduct(long productId) {
+        int index = rowIndex.remove(productId) - 1;
+        neighbors.remove(productId);
+        if (index < 0) {
+            return;
+        }
+        LongIntHashMap row = rows.get(index);
+        rows.set(index, null);
+        freeRows.push(index);
+        pairCount -= row.size();
+
+        row.forEach((other, count) -> {
+            LongIntHashMap otherRow = row(other);
+            if (otherRow == null) {
+                return;
+            }
+            otherRow.remove(productId);
+            pairCount--;
+            Neighbors current = neighbors.get(other);
+            if (current != null && indexOf(current.ids, productId) >= 0) {
+                recompute(other, otherRow);
+            }
+        });
+    }
+
+    // ids of up to n products most often bought together with the product, best first
+    public long[] related(long productId, int n) {
+        Neighbors current = neighbors.get(productId);
+        if (current == null || n <= 0) {
+            return NO_IDS;
+        }
+        return Arrays.copyOf(current.ids, Math.min(n, current.ids.length));
+    }
+
+    // number of orders containing both products
+    public synchronized int count(long a, long b) {
+        LongIntHashMap row = row(a);
+        if (row == null) {
+            return 0;
+        }
+        return row.get(b);
+    }
+
+    public synchronized void clear() {
+        rowIndex.clear();
+        rows.clear();
+        freeRows.clear();
+        neighbors.clear();
+        pairCount = 0;
+    }
+
+    // products with at least one co-purchase
+    public int productCount() {
+        return neighbors.size();
+    }
+
+    // non zero cells of the matrix, every pair is counted in both directions
+    public synchronized long pairCount() {
+        return pairCount;
+    }
+
+    // the count of pair (a, b) went up to count, update the neighbor list of a
+    private void offer(long a, long b, int count) {
+        Neighbors current = neighbors.get(a);
+        if (current == null) {
+            neighbors.put(a, new Neighbors(new long[] {b}, new int[] {count}));
+            return;
+        }
+        long[] ids = current.ids;
+        int[] counts = current.counts;
+        int position = indexOf(ids, b);
+        if (position < 0) {
+            if (ids.length < neighborCount) {
+                ids = Arrays.copyOf(ids, ids.length + 1);
+                counts = Arrays.copyOf(counts, counts.length + 1);
+                position = ids.length - 1;
+            } else if (ranksBefore(count, b, counts[counts.length - 1], ids[ids.length - 1])) {
+                // replaces the weakest neighbor
+                ids = ids.clone();
+                counts = counts.clone();
+                position = ids.length - 1;
+            } else {
+                return;
+            }
+        } else {
+            ids = ids.clone();
+            counts = counts.clone();
+        }
+        ids[position] = b;
+        counts[position] = count;
+
+        // the count only went up, so move the entry towards the front
+        while (position > 0 && ranksBefore(counts[position], ids[position], counts[position - 1], ids[position - 1])) {
+            long id = ids[position];
+            ids[position] = ids[position - 1];
+            ids[position - 1] = id;
+            int c = counts[position];
+            counts[position] = counts[position - 1];
+            counts[position - 1] = c;
+            position--;
+        }
+        neighbors.put(a, new Neighbors(ids, counts));
+    }
+
+    // rebuild the neighbor list of a product from its whole row
+    private void recompute(long productId, LongIntHashMap row) {
+        if (row.isEmpty()) {
+            neighbors.remove(productId);
+            return;
+        }
+        int k = Math.min(neighborCount, row.size());
+        long[] ids = new long[k];
+        int[] counts = new int[k];
+        int[] filled = {0};
+        // insertion into a sorted array of at most k entries
+        row.forEach((id, count) -> {
+            int size = filled[0];
+            if (size == k && !ranksBefore(count, id, counts[k - 1], ids[k - 1])) {
+                return;
+            }
+            int position = Math.min(size, k - 1);
+            while (position > 0 && ranksBefore(count, id, counts[position - 1], ids[position - 1])) {
+                ids[position] = ids[position - 1];
+                counts[position] = counts[position - 1];
+                position--;
+            }
+            ids[position] = id;
+            counts[position] = count;
+            if (size < k) {
+                filled[0] = size + 1;
+            }
+        });
+        neighbors.put(productId, new Neighbors(ids, counts));
+    }
+
+    private LongIntHashMap row(long productId) {
+        int index = rowIndex.get(productId) - 1;
+        if (index < 0) {
+            return null;
+        }
+        return rows.get(index);
+    }
+
+    private LongIntHashMap rowFor(long productId) {
+        LongIntHashMap row = row(productId);
+        if (row == null) {
+            row = new LongIntHashMap();
+            if (freeRows.isEmpty()) {
+                rows.add(row);
+                rowIndex.put(productId, rows.size());
+            } else {
+                int index = freeRows.pop();
+                rows.set(index, row);
+                rowIndex.put(productId, index + 1);
+            }
+        }
+        return row;
+    }
+
+    // higher count first, lower id breaks ties
+    private static boolean ranksBefore(int count, long id, int otherCount, long otherId) {
+        if (count != otherCount) {
+            return count > otherCount;
+        }
+        return id < otherId;
+    }
+
+    private static int indexOf(long[] ids, long id) {
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static long[] distinct(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int unique = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[unique++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, unique);
+    }
+}
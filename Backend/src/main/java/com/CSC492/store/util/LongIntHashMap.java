@@ -0,0 +1,180 @@
+package com.CSC492.store.util;
+
+import java.util.Arrays;
+
+// Hash map from long keys to int values without boxing
+// keys and values live in two plain arrays (open addressing with linear probing),
+// so an entry costs 12 bytes instead of a HashMap node with a Long and an Integer object
+// a missing key reads as 0. Not thread safe, callers synchronize
+public class LongIntHashMap {
+
+    private static final long EMPTY = 0L;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+    // key 0 marks an empty slot, so the value of key 0 is kept on the side
+    private boolean hasZeroKey;
+    private int zeroValue;
+
+    public LongIntHashMap() {
+        this(8);
+    }
+
+    public LongIntHashMap(int expectedSize) {
+        int capacity = 8;
+        while (capacity * 3 / 4 < expectedSize) {
+            capacity <<= 1;
+        }
+        keys = new long[capacity];
+        values = new int[capacity];
+    }
+
+    public int size() {
+        if (hasZeroKey) {
+            return size + 1;
+        }
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public boolean containsKey(long key) {
+        if (key == EMPTY) {
+            return hasZeroKey;
+        }
+        return keys[slotOf(key)] == key;
+    }
+
+    // value of the key, 0 if absent
+    public int get(long key) {
+        if (key == EMPTY) {
+            return zeroValue;
+        }
+        int slot = slotOf(key);
+        if (keys[slot] == key) {
+            return values[slot];
+        }
+        return 0;
+    }
+
+    public void put(long key, int value) {
+        if (key == EMPTY) {
+            hasZeroKey = true;
+            zeroValue = value;
+            return;
+        }
+        int slot = slotOf(key);
+        if (keys[slot] != key) {
+            keys[slot] = key;
+            size++;
+        }
+        values[slot] = value;
+        if (size > keys.length * 3 / 4) {
+            resize(keys.length << 1);
+        }
+    }
+
+    // add delta to the value of the key (0 if absent) and return the new value
+    public int addTo(long key, int delta) {
+        int value = get(key) + delta;
+        put(key, value);
+        return value;
+    }
+
+    // remove the key, returns its old value or 0
+    public int remove(long key) {
+        if (key == EMPTY) {
+            int old = zeroValue;
+            hasZeroKey = false;
+            zeroValue = 0;
+            return old;
+        }
+        int slot = slotOf(key);
+        if (keys[slot] != key) {
+            return 0;
+        }
+        int old = values[slot];
+        size--;
+
+        // shift the following entries of the probe chain back so lookups still find them
+        int mask = keys.length - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = hash(keys[next]) & mask;
+            // the entry may move into the hole only if the hole lies between its home slot and its slot
+            boolean movable;
+            if (hole <= next) {
+                movable = home <= hole || home > next;
+            } else {
+                movable = home <= hole && home > next;
+            }
+            if (movable) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = EMPTY;
+        values[hole] = 0;
+        return old;
+    }
+
+    // call the consumer for every entry, in no particular order
+    public void forEach(Consumer consumer) {
+        if (hasZeroKey) {
+            consumer.accept(EMPTY, zeroValue);
+        }
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) {
+                consumer.accept(keys[slot], values[slot]);
+            }
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(values, 0);
+        size = 0;
+        hasZeroKey = false;
+        zeroValue = 0;
+    }
+
+    public interface Consumer {
+        void accept(long key, int value);
+    }
+
+    // the slot holding the key, or the empty slot where it would go
+    private int slotOf(long key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[capacity];
+        values = new int[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slotOf(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    // spread the bits so sequential ids do not fill neighbouring slots
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
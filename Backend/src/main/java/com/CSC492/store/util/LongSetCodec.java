@@ -0,0 +1,102 @@
+package com.CSC492.store.util;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+// Compact byte encoding for a set of ids
+// the ids are sorted and only the gap to the previous id is stored, as a variable length number
+// (7 bits per byte, the high bit says another byte follows), so ids that are close together
+// take one or two bytes instead of eight
+// encodeList keeps the order of the ids, for ranked lists, the gap can then be negative
+// and is stored zigzag encoded (0, -1, 1, -2, ... -> 0, 1, 2, 3, ...)
+public class LongSetCodec {
+
+    private LongSetCodec() {}
+
+    // ids may be unsorted and contain duplicates, ids must not be negative
+    public static byte[] encode(long[] ids) {
+        long[] sorted = ids.clone();
+        Arrays.sort(sorted);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(sorted.length * 2);
+        long previous = 0;
+        boolean first = true;
+        for (long id : sorted) {
+            if (!first && id == previous) {
+                continue;
+            }
+            writeVarLong(out, id - previous);
+            previous = id;
+            first = false;
+        }
+        return out.toByteArray();
+    }
+
+    // sorted distinct ids, empty for null or empty input
+    public static long[] decode(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return new long[0];
+        }
+        long[] ids = new long[bytes.length];
+        int count = 0;
+        long previous = 0;
+        int i = 0;
+        while (i < bytes.length) {
+            long gap = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes[i++];
+                gap |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            previous += gap;
+            ids[count++] = previous;
+        }
+        return Arrays.copyOf(ids, count);
+    }
+
+    // ids in the given order, duplicates are kept
+    public static byte[] encodeList(long[] ids) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(ids.length * 2);
+        long previous = 0;
+        for (long id : ids) {
+            long delta = id - previous;
+            writeVarLong(out, (delta << 1) ^ (delta >> 63));
+            previous = id;
+        }
+        return out.toByteArray();
+    }
+
+    // ids in the order they were encoded, empty for null or empty input
+    public static long[] decodeList(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return new long[0];
+        }
+        long[] ids = new long[bytes.length];
+        int count = 0;
+        long previous = 0;
+        int i = 0;
+        while (i < bytes.length) {
+            long zigzag = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes[i++];
+                zigzag |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            previous += (zigzag >>> 1) ^ -(zigzag & 1);
+            ids[count++] = previous;
+        }
+        return Arrays.copyOf(ids, count);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}
@@ -0,0 +1,43 @@
+package com.CSC492.store.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+// Equal width price buckets between the lowest and highest price, in cents
+// bucket i covers [from(i), to(i)), the last bucket also includes the highest price
+// the bucket count can end up lower than requested when the price range is small
+public class PriceHistogram {
+
+    private final long minCents;
+    private final long widthCents;
+    private final int bucketCount;
+
+    public PriceHistogram(long minCents, long maxCents, int requestedBuckets) {
+        long range = maxCents - minCents + 1;
+        int buckets = Math.max(1, requestedBuckets);
+        this.minCents = minCents;
+        this.widthCents = Math.max(1, (range + buckets - 1) / buckets);
+        this.bucketCount = (int) ((range + widthCents - 1) / widthCents);
+    }
+
+    public int getBucketCount() {
+        return bucketCount;
+    }
+
+    // bucket index of a price inside [min, max]
+    public int indexOf(long cents) {
+        return (int) ((cents - minCents) / widthCents);
+    }
+
+    public BigDecimal from(int bucket) {
+        return BigDecimal.valueOf(minCents + bucket * widthCents, 2);
+    }
+
+    public BigDecimal to(int bucket) {
+        return BigDecimal.valueOf(minCents + (bucket + 1) * widthCents, 2);
+    }
+
+    public static long toCents(BigDecimal price) {
+        return price.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue();
+    }
+}
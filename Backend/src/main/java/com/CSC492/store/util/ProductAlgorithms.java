@@ -3,62 +3,89 @@ import com.CSC492.store.model.Product;
 import java.util.*;
 
 public class ProductAlgorithms {
-    // Merge sort for sorting by price, and newest
-    // using the divide and conquer approach by splitting the list into two halves
-    // and recursively sorting each half and then merging the two sorted halves into one sorted list
-    // the recursion the method calls itself to sort smaller and smaller portions.
-    // Why we used this because it provides stable sorting 
-    // Time complexity: O(n log n)
-    public static List<Product> mergeSort(List<Product> list, Comparator<Product> comparator) {
-        // this is the base case that if the list has 0 or 1 item, it is already sorted so return it the list as is
-        if (list.size() <= 1) {
-            return list;
+    // compares two candidates by their position in score arrays the caller filled beforehand,
+    // so a comparison only reads primitive arrays, no map lookups and no boxing
+    public interface IndexComparator {
+        int compare(int i, int j);
+    }
+
+    // Top-K selection over positions 0..count-1, used for the recommendation and trending lists
+    // instead of sorting every candidate and keeping the first k, keep only the best k seen so far
+    // in a bounded heap where the root is the worst of them, each new position either replaces
+    // the root or is skipped; ties are broken by the position
+    // if k is invalid or not smaller than count, every position is returned in order
+    // returns the positions, best first
+    // Time complexity: O(n log k), the only allocation is the result array
+    public static int[] topKIndexes(int count, int k, IndexComparator comparator) {
+        if (k <= 0 || k > count) {
+            k = count;
         }
 
-        // get the middle index to split the list into two
-        int mid = list.size() / 2;
-        
-        // recursively sort the left half of the list and using sublist it creates a view of the original list
-        List<Product> left = mergeSort(list.subList(0, mid), comparator);
-        // does the same for the right half of the list
-        List<Product> right = mergeSort(list.subList(mid, list.size()), comparator);
+        // heap of positions, heap[0] is the worst position kept so far
+        int[] heap = new int[k];
+        int heapSize = 0;
+
+        for (int i = 0; i < count; i++) {
+            if (heapSize < k) {
+                // heap not full yet, add and move up while the parent is better
+                int child = heapSize++;
+                heap[child] = i;
+                while (child > 0) {
+                    int parent = (child - 1) / 2;
+                    if (compareIndexes(heap[parent], heap[child], comparator) >= 0) {
+                        break;
+                    }
+                    swap(heap, parent, child);
+                    child = parent;
+                }
+            } else if (k > 0 && compareIndexes(i, heap[0], comparator) < 0) {
+                // better than the worst kept position, replace the root and move it down
+                heap[0] = i;
+                siftDownIndexes(heap, heapSize, comparator);
+            }
+        }
 
-        // merge the two sorted halves into a single sorted list and return it
-        return merge(left, right, comparator);
+        // take the worst out of the heap one at a time and fill the array from the back, best ends up first
+        while (heapSize > 1) {
+            swap(heap, 0, --heapSize);
+            siftDownIndexes(heap, heapSize, comparator);
+        }
+        return heap;
     }
 
-    // made a separate method for the merge, for merging the two sorted lists into one sorted list
-    private static List<Product> merge(List<Product> left, List<Product> right, Comparator<Product> comparator) {
-        // this will hold the final sorted result
-        List<Product> result = new ArrayList<>();
-        
-        // this the index for the left list
-        int i = 0;
-        // and index for the right list, or pointer as well
-        int j = 0;
-
-        //loop while both lists still have elements
-        while (i < left.size() && j < right.size()) {
-            // compare the current elements of both lists using comparator
-            // if left[i] is less than or equal to right[j], add left[i]
-            if (comparator.compare(left.get(i), right.get(j)) <= 0) {
-                // add left[i] to the result list
-                // increment the left index to move forward
-                result.add(left.get(i++));
+    private static void siftDownIndexes(int[] heap, int heapSize, IndexComparator comparator) {
+        int parent = 0;
+        while (true) {
+            int left = 2 * parent + 1;
+            int right = left + 1;
+            int worst = parent;
+            if (left < heapSize && compareIndexes(heap[left], heap[worst], comparator) > 0) {
+                worst = left;
             }
-            else {
-                //right[j] is smaller so add right[j] to the result list
-                // increment the right index to move forward
-                result.add(right.get(j++));
+            if (right < heapSize && compareIndexes(heap[right], heap[worst], comparator) > 0) {
+                worst = right;
             }
+            if (worst == parent) {
+                return;
+            }
+            swap(heap, parent, worst);
+            parent = worst;
         }
-        //after the loop ends one of the lists may still have leftover elements
-        // so add all remaining elements from the left and right lists, if any
-        result.addAll(left.subList(i, left.size()));
-        result.addAll(right.subList(j, right.size()));
+    }
+
+    // the earlier position wins a tie
+    private static int compareIndexes(int i, int j, IndexComparator comparator) {
+        int compare = comparator.compare(i, j);
+        if (compare != 0) {
+            return compare;
+        }
+        return Integer.compare(i, j);
+    }
 
-        // return the merged and sorted list
-        return result;
+    private static void swap(int[] heap, int i, int j) {
+        int temp = heap[i];
+        heap[i] = heap[j];
+        heap[j] = temp;
     }
 
     // Binary Search for search keyword
@@ -0,0 +1,88 @@
+package com.CSC492.store.util;
+
+import com.CSC492.store.model.Product;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Continuation token for keyset (cursor) pagination of the product listing
+// it remembers the sort order and the sort key of the last product on the page,
+// the next page starts right after that key instead of skipping page * size rows
+// the client only passes the token back, so it is encoded as an opaque url-safe string
+// view counts change between pages, so a POPULAR scroll can skip or repeat a product that gained views
+public class ProductCursor {
+
+    private final ProductSort sort;
+    private final BigDecimal lastPrice;
+    private final long lastViews;
+    private final long lastId;
+
+    public ProductCursor(ProductSort sort, BigDecimal lastPrice, long lastViews, long lastId) {
+        this.sort = sort;
+        this.lastPrice = lastPrice;
+        this.lastViews = lastViews;
+        this.lastId = lastId;
+    }
+
+    // cursor pointing after the given product
+    public static ProductCursor after(ProductSort sort, Product last) {
+        return new ProductCursor(sort, last.getPrice(), last.getViewCount(), last.getId());
+    }
+
+    // token format before encoding: SORT|key|id, the key is the price for the price sorts,
+    // the view count for POPULAR and empty for the id sorts
+    public String encode() {
+        String key = "";
+        if (sort == ProductSort.POPULAR) {
+            key = Long.toString(lastViews);
+        } else if (lastPrice != null) {
+            key = lastPrice.toPlainString();
+        }
+        String raw = sort.name() + "|" + key + "|" + lastId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // throws IllegalArgumentException if the token was not created by encode()
+    public static ProductCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            ProductSort sort = ProductSort.valueOf(parts[0]);
+            long id = Long.parseLong(parts[2]);
+            if (sort == ProductSort.POPULAR) {
+                return new ProductCursor(sort, null, Long.parseLong(parts[1]), id);
+            }
+            BigDecimal price = null;
+            if (!parts[1].isEmpty()) {
+                price = new BigDecimal(parts[1]);
+            }
+            if ((sort == ProductSort.PRICE_ASC || sort == ProductSort.PRICE_DESC) && price == null) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new ProductCursor(sort, price, 0, id);
+        } catch (IllegalArgumentException e) {
+            // also covers bad base64, unknown sort names and NumberFormatException
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    public ProductSort getSort() {
+        return sort;
+    }
+
+    public BigDecimal getLastPrice() {
+        return lastPrice;
+    }
+
+    public long getLastViews() {
+        return lastViews;
+    }
+
+    public long getLastId() {
+        return lastId;
+    }
+}
@@ -0,0 +1,326 @@
+package com.CSC492.store.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Inverted index over product names for the search box
+// every name is normalized to lowercase words separated by single spaces with a leading space,
+// and split into trigrams, " wireless" -> " wi", "wir", "ire", ...
+// each trigram points to a sorted array of the product ids whose name contains it (posting list)
+// Searching:
+// - 3 or more characters: substring match, intersect the postings of the query trigrams
+//   and confirm with contains() on the few candidates left
+// - 1 or 2 characters: substring match by checking every name, a 2 letter keyword has no trigram
+//   and "ab" must still find "Tablet" like the LIKE '%ab%' it replaces
+// - no substring hit for 4 or more characters: typo match, products sharing enough trigrams
+//   with the query are checked with a bounded edit distance
+// so from 3 characters on the cost depends on the size of the posting lists touched, not on the catalog size
+// Punctuation is not matched: "usb-c", "usb c" and "USB/C" all search for " usb c"
+// Writers are synchronized, readers take no lock. Posting arrays are never modified,
+// an update stores a new array, so a reader always sees a complete list
+public class ProductSearchIndex {
+
+    private static final long[] EMPTY = new long[0];
+
+    // trigram -> sorted product ids
+    private final Map<String, long[]> trigramPostings = new ConcurrentHashMap<>();
+    // product id -> normalized name, used to confirm candidates, for short keywords and to remove old grams on update
+    private final Map<Long, String> names = new ConcurrentHashMap<>();
+
+    // build the index for many products at once, much faster than adding them one by one
+    // ids and names are parallel lists
+    public synchronized void addAll(List<Long> ids, List<String> rawNames) {
+        Map<String, List<Long>> trigramLists = new HashMap<>();
+
+        for (int i = 0; i < ids.size(); i++) {
+            Long id = ids.get(i);
+            if (id == null) {
+                continue;
+            }
+            String normalized = normalize(rawNames.get(i));
+            String previous = names.put(id, normalized);
+            if (previous != null) {
+                removeGrams(id, previous);
+            }
+            for (String gram : trigrams(normalized)) {
+                trigramLists.computeIfAbsent(gram, k -> new ArrayList<>()).add(id);
+            }
+        }
+        mergeInto(trigramPostings, trigramLists);
+    }
+
+    // add a product or replace its name
+    public synchronized void put(Long id, String rawName) {
+        if (id == null) {
+            return;
+        }
+        String normalized = normalize(rawName);
+        String previous = names.put(id, normalized);
+        if (normalized.equals(previous)) {
+            return;
+        }
+        if (previous != null) {
+            removeGrams(id, previous);
+        }
+        for (String gram : trigrams(normalized)) {
+            trigramPostings.put(gram, insert(trigramPostings.getOrDefault(gram, EMPTY), id));
+        }
+    }
+
+    // remove a product from the index
+    public synchronized void remove(Long id) {
+        if (id == null) {
+            return;
+        }
+        String previous = names.remove(id);
+        if (previous != null) {
+            removeGrams(id, previous);
+        }
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    // ids of the products matching the keyword, sorted ascending
+    public long[] search(String keyword) {
+        String query = normalize(keyword).trim();
+        if (query.isEmpty()) {
+            return EMPTY;
+        }
+
+        if (query.length() <= 2) {
+            return shortMatches(query);
+        }
+
+        long[] exact = substringMatches(query);
+        if (exact.length > 0 || query.length() < 4) {
+            return exact;
+        }
+        return typoMatches(query);
+    }
+
+    // products whose name contains the query
+    private long[] substringMatches(String query) {
+        List<String> grams = trigrams(query);
+
+        // fetch every posting list, a missing trigram means nothing can match
+        long[][] lists = new long[grams.size()][];
+        for (int i = 0; i < grams.size(); i++) {
+            long[] posting = trigramPostings.get(grams.get(i));
+            if (posting == null) {
+                return EMPTY;
+            }
+            lists[i] = posting;
+        }
+
+        // start from the shortest list and keep only ids present in all the others
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.length, b.length));
+        long[] smallest = lists[0];
+        long[] result = new long[smallest.length];
+        int count = 0;
+        for (long id : smallest) {
+            boolean inAll = true;
+            for (int i = 1; i < lists.length && inAll; i++) {
+                inAll = Arrays.binarySearch(lists[i], id) >= 0;
+            }
+            if (!inAll) {
+                continue;
+            }
+            // trigrams can match out of order, so confirm on the name itself
+            String name = names.get(id);
+            if (name != null && name.contains(query)) {
+                result[count++] = id;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    // products whose name contains a 1 or 2 character query anywhere, not only at a word start
+    private long[] shortMatches(String query) {
+        long[] result = new long[names.size()];
+        int count = 0;
+        for (Map.Entry<Long, String> entry : names.entrySet()) {
+            if (count == result.length) {
+                // products were added while scanning
+                result = Arrays.copyOf(result, count * 2 + 1);
+            }
+            if (entry.getValue().contains(query)) {
+                result[count++] = entry.getKey();
+            }
+        }
+        result = Arrays.copyOf(result, count);
+        Arrays.sort(result);
+        return result;
+    }
+
+    // products whose name contains the query with a small number of typos
+    // 1 edit allowed for short keywords, 2 from 8 characters on
+    private long[] typoMatches(String query) {
+        int maxEdits;
+        if (query.length() >= 8) {
+            maxEdits = 2;
+        } else {
+            maxEdits = 1;
+        }
+
+        // one edit can break at most 3 trigrams, so a real match shares at least this many
+        List<String> grams = trigrams(query);
+        int minShared = Math.max(1, grams.size() - 3 * maxEdits);
+
+        Map<Long, Integer> shared = new HashMap<>();
+        for (String gram : grams) {
+            long[] posting = trigramPostings.get(gram);
+            if (posting == null) {
+                continue;
+            }
+            for (long id : posting) {
+                shared.merge(id, 1, Integer::sum);
+            }
+        }
+
+        long[] result = new long[shared.size()];
+        int count = 0;
+        for (Map.Entry<Long, Integer> entry : shared.entrySet()) {
+            if (entry.getValue() < minShared) {
+                continue;
+            }
+            String name = names.get(entry.getKey());
+            if (name != null && substringDistance(query, name) <= maxEdits) {
+                result[count++] = entry.getKey();
+            }
+        }
+        result = Arrays.copyOf(result, count);
+        Arrays.sort(result);
+        return result;
+    }
+
+    // lowercase words separated by single spaces, with a leading space so word starts become grams
+    // also used by the database fallback so both search the same text
+    public static String normalize(String raw) {
+        if (raw == null) {
+            return " ";
+        }
+        StringBuilder sb = new StringBuilder(raw.length() + 1);
+        sb.append(' ');
+        boolean lastSpace = true;
+        for (int i = 0; i < raw.length(); i++) {
+            char c = Character.toLowerCase(raw.charAt(i));
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(c);
+                lastSpace = false;
+            } else if (!lastSpace) {
+                sb.append(' ');
+                lastSpace = true;
+            }
+        }
+        return sb.toString();
+    }
+
+    // distinct trigrams of a normalized string
+    private static List<String> trigrams(String text) {
+        List<String> grams = new ArrayList<>();
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            String gram = text.substring(i, i + 3);
+            if (!grams.contains(gram)) {
+                grams.add(gram);
+            }
+        }
+        return grams;
+    }
+
+    // smallest edit distance between the query and any substring of the text (Sellers algorithm)
+    private static int substringDistance(String query, String text) {
+        int m = query.length();
+        int[] previous = new int[m + 1];
+        int[] current = new int[m + 1];
+        for (int i = 0; i <= m; i++) {
+            previous[i] = i;
+        }
+        int best = previous[m];
+        for (int j = 1; j <= text.length(); j++) {
+            // a match may start anywhere in the text, so the first row stays 0
+            current[0] = 0;
+            char c = text.charAt(j - 1);
+            for (int i = 1; i <= m; i++) {
+                int cost;
+                if (query.charAt(i - 1) == c) {
+                    cost = 0;
+                } else {
+                    cost = 1;
+                }
+                current[i] = Math.min(Math.min(current[i - 1] + 1, previous[i] + 1), previous[i - 1] + cost);
+            }
+            best = Math.min(best, current[m]);
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return best;
+    }
+
+    private void removeGrams(Long id, String normalized) {
+        for (String gram : trigrams(normalized)) {
+            removeFrom(trigramPostings, gram, id);
+        }
+    }
+
+    private static void removeFrom(Map<String, long[]> postings, String key, long id) {
+        long[] posting = postings.get(key);
+        if (posting == null) {
+            return;
+        }
+        int index = Arrays.binarySearch(posting, id);
+        if (index < 0) {
+            return;
+        }
+        if (posting.length == 1) {
+            postings.remove(key);
+            return;
+        }
+        long[] copy = new long[posting.length - 1];
+        System.arraycopy(posting, 0, copy, 0, index);
+        System.arraycopy(posting, index + 1, copy, index, posting.length - index - 1);
+        postings.put(key, copy);
+    }
+
+    // new sorted array with the id added
+    private static long[] insert(long[] posting, long id) {
+        int index = Arrays.binarySearch(posting, id);
+        if (index >= 0) {
+            return posting;
+        }
+        int insertAt = -index - 1;
+        long[] copy = new long[posting.length + 1];
+        System.arraycopy(posting, 0, copy, 0, insertAt);
+        copy[insertAt] = id;
+        System.arraycopy(posting, insertAt, copy, insertAt + 1, posting.length - insertAt);
+        return copy;
+    }
+
+    // merge freshly collected ids into the existing posting lists
+    private static void mergeInto(Map<String, long[]> postings, Map<String, List<Long>> additions) {
+        for (Map.Entry<String, List<Long>> entry : additions.entrySet()) {
+            long[] existing = postings.getOrDefault(entry.getKey(), EMPTY);
+            long[] merged = Arrays.copyOf(existing, existing.length + entry.getValue().size());
+            int count = existing.length;
+            for (Long id : entry.getValue()) {
+                merged[count++] = id;
+            }
+            Arrays.sort(merged);
+
+            // drop duplicates
+            int unique = 0;
+            for (int i = 0; i < merged.length; i++) {
+                if (i == 0 || merged[i] != merged[i - 1]) {
+                    merged[unique++] = merged[i];
+                }
+            }
+            postings.put(entry.getKey(), Arrays.copyOf(merged, unique));
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.CSC492.store.util;
+
+import org.springframework.data.domain.Sort;
+
+// The sort orders the product listing supports
+// id is always the last sort key so products with the same price keep a stable order between pages
+public enum ProductSort {
+    ID_ASC,
+    ID_DESC,
+    PRICE_ASC,
+    PRICE_DESC,
+    // most viewed first
+    POPULAR;
+
+    // map the sortBy and sortDir request params to a sort order, price, newest or popular
+    public static ProductSort from(String sortBy, String sortDir) {
+        boolean descending = sortDir != null && sortDir.equals("desc");
+
+        // Sort by price, ties by oldest product first
+        if (sortBy != null && sortBy.equals("price")) {
+            if (descending) {
+                return PRICE_DESC;
+            }
+            return PRICE_ASC;
+        }
+
+        // Sort by newest, "desc" flips it back to oldest first
+        if (sortBy != null && sortBy.equals("newest")) {
+            if (descending) {
+                return ID_ASC;
+            }
+            return ID_DESC;
+        }
+
+        // Sort by detail page views, ties by oldest product first
+        if (sortBy != null && sortBy.equals("popular")) {
+            return POPULAR;
+        }
+
+        // Default: sort by ID
+        if (descending) {
+            return ID_DESC;
+        }
+        return ID_ASC;
+    }
+
+    // the same order expressed as a Spring Data Sort for the database queries
+    public Sort toSort() {
+        switch (this) {
+            case ID_DESC:
+                return Sort.by(Sort.Direction.DESC, "id");
+            case PRICE_ASC:
+                return Sort.by(Sort.Direction.ASC, "price").and(Sort.by(Sort.Direction.ASC, "id"));
+            case PRICE_DESC:
+                return Sort.by(Sort.Direction.DESC, "price").and(Sort.by(Sort.Direction.ASC, "id"));
+            case POPULAR:
+                return Sort.by(Sort.Direction.DESC, "viewCount").and(Sort.by(Sort.Direction.ASC, "id"));
+            default:
+                return Sort.by(Sort.Direction.ASC, "id");
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.CSC492.store.util;
+
+import com.CSC492.store.model.Product;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// The products that can be recommended, shared by every customer of a recommendation batch run
+// built once from the catalog and the average ratings: only products in stock, sorted by
+// average rating descending then newer id first, plus the same order split per category
+// A customer's ranking (categories bought most first, then rating, then newer id) is then a merge
+// of the category lists, so each customer costs about n steps instead of sorting the catalog
+// gives the same products in the same order as ProductService.getRecommendationsForUser
+public final class RecommendationCandidates {
+
+    // in stock products, best rated first
+    private final Product[] ranked;
+    // category name -> positions in ranked of its products, ascending
+    private final Map<String, int[]> categoryPositions;
+
+    private RecommendationCandidates(Product[] ranked, Map<String, int[]> categoryPositions) {
+        this.ranked = ranked;
+        this.categoryPositions = categoryPositions;
+    }
+
+    // averageRatings: product id -> average rating, products without reviews count as 0
+    public static RecommendationCandidates of(List<Product> products, Map<Long, Double> averageRatings) {
+        List<Product> inStock = new ArrayList<>();
+        for (Product p : products) {
+            if (p.getId() != null && p.getStock() != null && p.getStock() > 0) {
+                inStock.add(p);
+            }
+        }
+        Product[] ranked = inStock.toArray(new Product[0]);
+        Arrays.sort(ranked, Comparator
+                .comparingDouble((Product p) -> averageRatings.getOrDefault(p.getId(), 0.0)).reversed()
+                .thenComparing(Product::getId, Comparator.reverseOrder()));
+
+        Map<String, List<Integer>> lists = new HashMap<>();
+        for (int i = 0; i < ranked.length; i++) {
+            lists.computeIfAbsent(categoryOf(ranked[i]), k -> new ArrayList<>()).add(i);
+        }
+        Map<String, int[]> categoryPositions = new HashMap<>();
+        for (Map.Entry<String, List<Integer>> entry : lists.entrySet()) {
+            int[] positions = new int[entry.getValue().size()];
+            for (int i = 0; i < positions.length; i++) {
+                positions[i] = entry.getValue().get(i);
+            }
+            categoryPositions.put(entry.getKey(), positions);
+        }
+        return new RecommendationCandidates(ranked, categoryPositions);
+    }
+
+    public int size() {
+        return ranked.length;
+    }
+
+    // top n products for a customer, n <= 0 returns all of them
+    // categoryCounts: category -> items bought, purchased: sorted ids of the products already bought
+    public List<Product> recommend(Map<String, Integer> categoryCounts, long[] purchased, int n) {
+        int limit = n;
+        if (limit <= 0 || limit > ranked.length) {
+            limit = ranked.length;
+        }
+        List<Product> result = new ArrayList<>(limit);
+
+        // categories with the same count tie, so they are merged by rating order
+        TreeMap<Integer, List<int[]>> byCount = new TreeMap<>(Comparator.reverseOrder());
+        for (Map.Entry<String, Integer> entry : categoryCounts.entrySet()) {
+            int[] positions = categoryPositions.get(entry.getKey());
+            if (positions != null && entry.getValue() > 0) {
+                byCount.computeIfAbsent(entry.getValue(), k -> new ArrayList<>()).add(positions);
+            }
+        }
+        for (List<int[]> group : byCount.values()) {
+            if (result.size() >= limit) {
+                return result;
+            }
+            merge(group, purchased, limit, result);
+        }
+
+        // then every other category, all with count 0
+        for (int i = 0; i < ranked.length && result.size() < limit; i++) {
+            Integer count = categoryCounts.get(categoryOf(ranked[i]));
+            if (count != null && count > 0) {
+                continue;
+            }
+            if (Arrays.binarySearch(purchased, ranked[i].getId()) < 0) {
+                result.add(ranked[i]);
+            }
+        }
+        return result;
+    }
+
+    // k-way merge of category lists, the smallest position is the next best product
+    private void merge(List<int[]> lists, long[] purchased, int limit, List<Product> result) {
+        int[] heads = new int[lists.size()];
+        while (result.size() < limit) {
+            int best = -1;
+            for (int i = 0; i < heads.length; i++) {
+                int[] positions = lists.get(i);
+                if (heads[i] < positions.length && (best < 0 || positions[heads[i]] < lists.get(best)[heads[best]])) {
+                    best = i;
+                }
+            }
+            if (best < 0) {
+                return;
+            }
+            Product product = ranked[lists.get(best)[heads[best]++]];
+            if (Arrays.binarySearch(purchased, product.getId()) < 0) {
+                result.add(product);
+            }
+        }
+    }
+
+    private static String categoryOf(Product product) {
+        if (product.getCategory() != null) {
+            return product.getCategory();
+        }
+        return "Uncategorized";
+    }
+}
@@ -0,0 +1,89 @@
+package com.CSC492.store.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Counts events over the last hour and the last day without locks
+// two rings of time buckets: 60 buckets of one minute and 24 buckets of one hour
+// a bucket is one long holding (bucket number << 32) | count, so an add is a single compareAndSet,
+// and a bucket still holding an old bucket number is treated as 0 and restarted by the next add
+// the hour window is the current minute and the 59 before it, the day window the current hour and the 23 before it
+public class SlidingWindowCounter {
+
+    private static final long MINUTE = 60_000L;
+    private static final long HOUR = 60 * MINUTE;
+    private static final int MINUTE_BUCKETS = 60;
+    private static final int HOUR_BUCKETS = 24;
+    // a bucket's count is the low 32 bits
+    private static final long MAX_COUNT = 0xFFFFFFFFL;
+
+    private final AtomicLongArray minutes = new AtomicLongArray(MINUTE_BUCKETS);
+    private final AtomicLongArray hours = new AtomicLongArray(HOUR_BUCKETS);
+
+    public void add(long nowMillis, int amount) {
+        add(nowMillis, nowMillis, amount);
+    }
+
+    // count something that happened at eventMillis, for events handled after a delay
+    // a ring only takes it while the event is still inside its window, an older bucket would
+    // otherwise restart a slot that now belongs to a recent bucket
+    public void add(long eventMillis, long nowMillis, int amount) {
+        if (eventMillis > nowMillis) {
+            eventMillis = nowMillis;
+        }
+        if (nowMillis / MINUTE - eventMillis / MINUTE < MINUTE_BUCKETS) {
+            add(minutes, eventMillis / MINUTE, amount);
+        }
+        if (nowMillis / HOUR - eventMillis / HOUR < HOUR_BUCKETS) {
+            add(hours, eventMillis / HOUR, amount);
+        }
+    }
+
+    public long lastHour(long nowMillis) {
+        return sum(minutes, nowMillis / MINUTE);
+    }
+
+    public long lastDay(long nowMillis) {
+        return sum(hours, nowMillis / HOUR);
+    }
+
+    // nothing counted in the last day, the counter can be dropped
+    public boolean isIdle(long nowMillis) {
+        return lastDay(nowMillis) == 0;
+    }
+
+    private static void add(AtomicLongArray ring, long bucket, int amount) {
+        int slot = (int) (bucket % ring.length());
+        while (true) {
+            long current = ring.get(slot);
+            long updated;
+            if ((current >>> 32) == (bucket & 0xFFFFFFFFL)) {
+                // the count stops at the 32 bit maximum instead of carrying into the bucket number
+                updated = pack(bucket, Math.min((current & MAX_COUNT) + amount, MAX_COUNT));
+            } else {
+                // the slot still holds an older bucket, start it over
+                updated = pack(bucket, amount);
+            }
+            if (ring.compareAndSet(slot, current, updated)) {
+                return;
+            }
+        }
+    }
+
+    // total of the buckets younger than the ring length
+    private static long sum(AtomicLongArray ring, long currentBucket) {
+        long total = 0;
+        for (int slot = 0; slot < ring.length(); slot++) {
+            long value = ring.get(slot);
+            long bucket = value >>> 32;
+            long age = ((currentBucket & 0xFFFFFFFFL) - bucket) & 0xFFFFFFFFL;
+            if (value != 0 && age < ring.length()) {
+                total += value & 0xFFFFFFFFL;
+            }
+        }
+        return total;
+    }
+
+    private static long pack(long bucket, long count) {
+        return ((bucket & 0xFFFFFFFFL) << 32) | (count & MAX_COUNT);
+    }
+}
@@ -0,0 +1,110 @@
+package com.CSC492.store.util;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// In-memory view counts waiting to be written to the database
+// one LongAdder per product, a LongAdder spreads concurrent increments over several cells (stripes)
+// so many requests viewing the same product do not fight over one value
+// the number of products tracked at once is capped, views of new products beyond the cap are only
+// counted as dropped, so memory stays bounded whatever ids are requested
+// drain() takes the counts to write and removes the products without new views
+public class ViewCounter {
+
+    private final int maxProducts;
+    private final Map<Long, LongAdder> counts = new ConcurrentHashMap<>();
+    private final LongAdder dropped = new LongAdder();
+
+    public ViewCounter(int maxProducts) {
+        this.maxProducts = maxProducts;
+    }
+
+    // counts collected by one drain, ids[i] has counts[i] views
+    public static class Batch {
+        private final long[] ids;
+        private final long[] counts;
+
+        Batch(long[] ids, long[] counts) {
+            this.ids = ids;
+            this.counts = counts;
+        }
+
+        public long[] getIds() {
+            return ids;
+        }
+
+        public long[] getCounts() {
+            return counts;
+        }
+
+        public int size() {
+            return ids.length;
+        }
+    }
+
+    public void increment(long productId) {
+        add(productId, 1, true);
+    }
+
+    // put counts back after a failed write, always accepted so no views are lost
+    public void addBack(long productId, long views) {
+        add(productId, views, false);
+    }
+
+    // take every count collected since the last drain, sorted by product id
+    // a product with nothing new since the last drain is removed from the map
+    // an increment racing with the removal of an idle product can be lost, view counts are approximate
+    public Batch drain() {
+        long[] ids = new long[counts.size()];
+        long[] values = new long[ids.length];
+        int size = 0;
+        for (Map.Entry<Long, LongAdder> entry : counts.entrySet()) {
+            long views = entry.getValue().sumThenReset();
+            if (views == 0) {
+                counts.remove(entry.getKey(), entry.getValue());
+                continue;
+            }
+            if (size == ids.length) {
+                // added while draining, keep it for the next drain
+                entry.getValue().add(views);
+                continue;
+            }
+            ids[size] = entry.getKey();
+            values[size] = views;
+            size++;
+        }
+
+        // sorted ids so concurrent writers lock the rows in the same order
+        long[] sortedIds = Arrays.copyOf(ids, size);
+        Arrays.sort(sortedIds);
+        long[] sortedCounts = new long[size];
+        for (int i = 0; i < size; i++) {
+            sortedCounts[Arrays.binarySearch(sortedIds, ids[i])] = values[i];
+        }
+        return new Batch(sortedIds, sortedCounts);
+    }
+
+    // products with views waiting
+    public int trackedProducts() {
+        return counts.size();
+    }
+
+    // views not counted because the cap was reached
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    private void add(long productId, long views, boolean capped) {
+        LongAdder adder = counts.get(productId);
+        if (adder == null) {
+            if (capped && counts.size() >= maxProducts) {
+                dropped.increment();
+                return;
+            }
+            adder = counts.computeIfAbsent(productId, id -> new LongAdder());
+        }
+        adder.add(views);
+    }
+}
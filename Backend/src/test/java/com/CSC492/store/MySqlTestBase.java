@@ -0,0 +1,77 @@
+package com.CSC492.store;
+
+import com.CSC492.store.dto.CheckoutItemDTO;
+import com.CSC492.store.model.Product;
+import com.CSC492.store.model.User;
+import com.CSC492.store.repository.ProductRepository;
+import com.CSC492.store.repository.UserRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// Base of the tests that need the whole application and a real MySQL
+// one container is started for all the test classes, so the cached Spring context keeps a live database
+// the tests are skipped when Docker is not available
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers(disabledWithoutDocker = true)
+public abstract class MySqlTestBase {
+
+    @ServiceConnection
+    static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0")
+            .withUrlParam("rewriteBatchedStatements", "true");
+
+    static {
+        MYSQL.start();
+    }
+
+    @Autowired
+    protected ProductRepository productRepository;
+
+    @Autowired
+    protected UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    // every test makes its own customer and products, the database is shared by all the tests
+    protected User newCustomer() {
+        String email = "customer-" + UUID.randomUUID() + "@test.com";
+        return userRepository.save(new User("Test Customer", email, "password", User.Role.CUSTOMER));
+    }
+
+    protected Product newProduct(int stock) {
+        return productRepository.save(new Product("Test Product " + UUID.randomUUID(), "", new BigDecimal("9.99"), "", "Test", stock));
+    }
+
+    // a cart with the same product on every line
+    protected static List<CheckoutItemDTO> cart(Product product, int lines, int quantity) {
+        List<CheckoutItemDTO> items = new ArrayList<>();
+        for (int i = 0; i < lines; i++) {
+            CheckoutItemDTO item = new CheckoutItemDTO();
+            item.setProductId(product.getId());
+            item.setQuantity(quantity);
+            items.add(item);
+        }
+        return items;
+    }
+
+    // Hibernate statistics, cleared so the next counts only cover the call under test
+    protected Statistics clearedStatistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+}
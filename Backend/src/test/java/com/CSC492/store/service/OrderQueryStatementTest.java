@@ -0,0 +1,104 @@
+package com.CSC492.store.service;
+
+import com.CSC492.store.MySqlTestBase;
+import com.CSC492.store.model.Order;
+import com.CSC492.store.model.Product;
+import com.CSC492.store.model.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The order read paths load the customer, items and products with their entity graph,
+// so the statements do not grow with the orders (no N+1), and the result can be
+// turned into JSON after the transaction ended (open-in-view is off)
+class OrderQueryStatementTest extends MySqlTestBase {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void ordersByUserUseTheSameStatementsForOneAndFiftyOrders() throws Exception {
+        Product product = newProduct(1000);
+        User oneOrder = customerWithOrders(product, 1, 2);
+        User fiftyOrders = customerWithOrders(product, 50, 2);
+
+        Statistics statistics = clearedStatistics();
+        List<Order> few = orderService.getOrdersByUser(oneOrder);
+        long fewStatements = statistics.getPrepareStatementCount();
+
+        statistics = clearedStatistics();
+        List<Order> many = orderService.getOrdersByUser(fiftyOrders);
+        long manyStatements = statistics.getPrepareStatementCount();
+
+        assertEquals(1, few.size());
+        assertEquals(50, many.size());
+        assertEquals(fewStatements, manyStatements);
+        assertSerializes(few);
+        assertSerializes(many);
+    }
+
+    @Test
+    void allOrdersUseTheSameStatementsWhenFiftyOrdersAreAdded() throws Exception {
+        Product product = newProduct(1000);
+        customerWithOrders(product, 1, 2);
+
+        Statistics statistics = clearedStatistics();
+        List<Order> before = orderService.getAllOrders();
+        long beforeStatements = statistics.getPrepareStatementCount();
+
+        customerWithOrders(product, 50, 2);
+
+        statistics = clearedStatistics();
+        List<Order> after = orderService.getAllOrders();
+        long afterStatements = statistics.getPrepareStatementCount();
+
+        assertEquals(before.size() + 50, after.size());
+        assertEquals(beforeStatements, afterStatements);
+        assertSerializes(after);
+    }
+
+    @Test
+    void orderByIdUsesTheSameStatementsForOneAndFiftyLines() throws Exception {
+        Product product = newProduct(1000);
+        User customer = newCustomer();
+        Order small = orderService.createOrderFromItems(customer, cart(product, 1, 1), Order.Status.COMPLETED);
+        Order large = orderService.createOrderFromItems(customer, cart(product, 50, 1), Order.Status.COMPLETED);
+
+        Statistics statistics = clearedStatistics();
+        Order smallRead = orderService.getOrderById(small.getId()).orElseThrow();
+        long smallStatements = statistics.getPrepareStatementCount();
+
+        statistics = clearedStatistics();
+        Order largeRead = orderService.getOrderById(large.getId()).orElseThrow();
+        long largeStatements = statistics.getPrepareStatementCount();
+
+        assertEquals(50, largeRead.getOrderItems().size());
+        assertEquals(smallStatements, largeStatements);
+        assertSerializes(smallRead);
+        assertSerializes(largeRead);
+    }
+
+    private User customerWithOrders(Product product, int orders, int lines) throws Exception {
+        User customer = newCustomer();
+        for (int i = 0; i < orders; i++) {
+            orderService.createOrderFromItems(customer, cart(product, lines, 1), Order.Status.COMPLETED);
+        }
+        return customer;
+    }
+
+    // fails with a LazyInitializationException if the JSON needs anything the query did not load
+    private void assertSerializes(Object orders) throws Exception {
+        String json = objectMapper.writeValueAsString(orders);
+        assertTrue(json.contains("\"orderItems\""));
+    }
+}
@@ -0,0 +1,48 @@
+package com.CSC492.store.service;
+
+import com.CSC492.store.MySqlTestBase;
+import com.CSC492.store.model.Order;
+import com.CSC492.store.model.Product;
+import com.CSC492.store.model.User;
+
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The items of an order are inserted in one JDBC batch, so the statements of a checkout
+// do not grow with the number of lines
+class OrderServiceBatchInsertTest extends MySqlTestBase {
+
+    // the order items table generator hands out blocks of 50 ids, a 30 line order can need
+    // one more block than a 1 line order: one select and one update on id_generators
+    private static final int BLOCK_STATEMENTS = 2;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Test
+    void thirtyLineOrderUsesAsManyStatementsAsOneLine() throws Exception {
+        Product product = newProduct(1000);
+        User customer = newCustomer();
+        // the first order of a run also creates the id_generators rows
+        orderService.createOrderFromItems(customer, cart(product, 1, 1), Order.Status.COMPLETED);
+
+        Statistics statistics = clearedStatistics();
+        orderService.createOrderFromItems(customer, cart(product, 1, 1), Order.Status.COMPLETED);
+        long oneLineStatements = statistics.getPrepareStatementCount();
+        long oneLineInserts = statistics.getEntityInsertCount();
+
+        statistics = clearedStatistics();
+        orderService.createOrderFromItems(customer, cart(product, 30, 1), Order.Status.COMPLETED);
+        long thirtyLineStatements = statistics.getPrepareStatementCount();
+        long thirtyLineInserts = statistics.getEntityInsertCount();
+
+        // all 30 items were inserted, without one statement per item
+        assertEquals(oneLineInserts + 29, thirtyLineInserts);
+        assertTrue(thirtyLineStatements <= oneLineStatements + BLOCK_STATEMENTS,
+                "1 line: " + oneLineStatements + " statements, 30 lines: " + thirtyLineStatements);
+    }
+}
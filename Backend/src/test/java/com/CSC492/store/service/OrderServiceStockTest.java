@@ -0,0 +1,82 @@
+package com.CSC492.store.service;
+
+import com.CSC492.store.MySqlTestBase;
+import com.CSC492.store.model.Order;
+import com.CSC492.store.model.Product;
+import com.CSC492.store.model.User;
+import com.CSC492.store.repository.OrderRepository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Many checkouts of the same product at once: the conditional stock update must sell
+// exactly the units in stock, never more
+class OrderServiceStockTest extends MySqlTestBase {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Test
+    void concurrentCheckoutsSellExactlyTheStock() throws Exception {
+        checkout(20, 5);
+    }
+
+    @Test
+    void concurrentCheckoutsAllSucceedWithEnoughStock() throws Exception {
+        checkout(10, 50);
+    }
+
+    // threads checkouts of one unit each, released together, on a product with stock units
+    private void checkout(int threads, int stock) throws Exception {
+        Product product = newProduct(stock);
+        User customer = newCustomer();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        orderService.createOrderFromItems(customer, cart(product, 1, 1), Order.Status.COMPLETED);
+                        return true;
+                    } catch (Exception e) {
+                        assertEquals("Not enough stock for product: " + product.getId(), e.getMessage());
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+
+            int sold = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get(60, TimeUnit.SECONDS)) {
+                    sold++;
+                }
+            }
+
+            int left = productRepository.findById(product.getId()).orElseThrow().getStock();
+            assertEquals(Math.min(threads, stock), sold);
+            assertEquals(stock - sold, left);
+            assertTrue(left >= 0);
+            assertEquals(sold, orderRepository.findByUser(customer).size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}